@@ -15,12 +15,16 @@
  */
 package com.github.dperezcabrera.ge;
 
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor.MethodDescriptor;
+import com.github.dperezcabrera.ge.annotations.ConnectorAdapter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import lombok.AllArgsConstructor;
 
@@ -29,40 +33,92 @@ import lombok.AllArgsConstructor;
  * @author David Pérez Cabrera <dperezcabrera@gmail.com>
  */
 public class ConnectorAdapterBuilderBase implements ConnectorAdapterBuilder {
-    private static final Map<Class<?>, Object> DEFAULT_FALUE_PRIMITIVES = initDefaultValuePrimitiveTypes();
+
+    public static final String ADAPTER_SUFFIX = "_ConnectorAdapter";
+    private static final MethodType ADAPTER_CONSTRUCTOR = MethodType.methodType(void.class, MethodInvoker.class, Map.class);
+    private static final ClassValue<Optional<MethodHandle>> ADAPTERS = new ClassValue<Optional<MethodHandle>>() {
+        @Override
+        protected Optional<MethodHandle> computeValue(Class<?> type) {
+            return findAdapter(type);
+        }
+    };
 
     @Override
     public <T> T connector(Class<T> type, MethodInvoker invoker, Map<Method, Long> timeouts) {
-        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, new PlayerConnector(invoker, timeouts));
+        Optional<MethodHandle> adapter = ADAPTERS.get(type);
+        if (adapter.isPresent()) {
+            try {
+                return type.cast(adapter.get().invoke(invoker, timeouts));
+            } catch (Throwable e) {
+                throw new GameException("Error creating the connector adapter of " + type, e);
+            }
+        }
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, new PlayerConnector(PlayerInterfaceDescriptor.of(type), invoker, timeouts));
+    }
+
+    /**
+     * @return the invoker behind a connector built by this class, or null if
+     * it is not known
+     */
+    public static MethodInvoker invokerOf(Object connector) {
+        if (connector != null && Proxy.isProxyClass(connector.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(connector);
+            if (handler instanceof PlayerConnector) {
+                return ((PlayerConnector) handler).invoker;
+            }
+        }
+        return null;
     }
 
-    private static Map<Class<?>, Object> initDefaultValuePrimitiveTypes() {
-        Map<Class<?>, Object> result = new HashMap<>();
-        result.put(boolean.class, false);
-        result.put(byte.class, (byte) 0);
-        result.put(char.class, (char) 0);
-        result.put(double.class, 0d);
-        result.put(float.class, 0f);
-        result.put(int.class, 0);
-        result.put(long.class, 0L);
-        result.put(short.class, (short) 0);
-        return Collections.unmodifiableMap(result);
+    public static String adapterSimpleName(String binaryNameWithoutPackage) {
+        return binaryNameWithoutPackage.replace('$', '_') + ADAPTER_SUFFIX;
+    }
+
+    public static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new GameException("Method " + name + " not found in " + type, e);
+        }
+    }
+
+    private static Optional<MethodHandle> findAdapter(Class<?> type) {
+        if (!type.isAnnotationPresent(ConnectorAdapter.class)) {
+            return Optional.empty();
+        }
+        String packageName = type.getPackageName();
+        String simpleName = packageName.isEmpty() ? type.getName() : type.getName().substring(packageName.length() + 1);
+        String adapterName = packageName.isEmpty() ? adapterSimpleName(simpleName) : packageName + "." + adapterSimpleName(simpleName);
+        try {
+            Class<?> adapterType = Class.forName(adapterName, true, type.getClassLoader());
+            if (!type.isAssignableFrom(adapterType)) {
+                return Optional.empty();
+            }
+            return Optional.of(MethodHandles.publicLookup().findConstructor(adapterType, ADAPTER_CONSTRUCTOR));
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            return Optional.empty();
+        }
     }
 
     @AllArgsConstructor
     private static class PlayerConnector implements InvocationHandler {
 
+        private static final Object[] NO_ARGS = new Object[0];
+
+        private PlayerInterfaceDescriptor<?> descriptor;
         private MethodInvoker invoker;
         private Map<Method, Long> timeouts;
 
         @Override
         public Object invoke(Object proxy, final Method method, final Object[] args) throws Throwable {
+            Object[] parameters = args == null ? NO_ARGS : args;
             Long time = timeouts.get(method);
             if (time == null) {
-                invoker.asyncCall(method, args);
-                return DEFAULT_FALUE_PRIMITIVES.get(method.getReturnType());
+                invoker.asyncCall(method, parameters);
+                MethodDescriptor md = descriptor.getMethod(method);
+                return md == null ? null : md.getDefaultValue();
             } else {
-                return invoker.call(method, args);
+                return invoker.call(method, parameters);
             }
         }
     }
@@ -15,10 +15,27 @@
  */
 package com.github.dperezcabrera.ge;
 
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor.MethodDescriptor;
+import com.github.dperezcabrera.ge.io.MethodCall;
+import com.github.dperezcabrera.ge.io.PreparedCall;
+import com.github.dperezcabrera.ge.util.Futures;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  *
@@ -28,7 +45,123 @@ import lombok.Data;
 @Data
 public class GameContext<P> {
 
+    private static final String RECORD_ERR_MSG = "The question must call exactly one player method";
+
     private Map<String, P> playersConnector;
     private Properties properties;
     private Map<String, Double> scores;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.PACKAGE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Class<P> playerType;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.PACKAGE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Map<String, MethodInvoker> playersInvoker;
+
+    /**
+     * Issues the same call to every player concurrently and waits for all the
+     * answers, each one bounded by the timeout of the called method. The
+     * question must consist of exactly one call to a player method, e.g.
+     * {@code p -> p.getMove(board)}.
+     */
+    public <R> Map<String, PlayerResult<R>> askAll(Function<P, R> question) {
+        return ask(playersConnector.keySet(), question);
+    }
+
+    public <R> Map<String, PlayerResult<R>> ask(Collection<String> players, Function<P, R> question) {
+        Map<String, CompletionStage<Object>> pending = new LinkedHashMap<>();
+        RecordedCall call = playerType == null || playersInvoker == null ? null : record(question);
+        for (String name : players) {
+            MethodInvoker invoker = playersInvoker == null ? null : playersInvoker.get(name);
+            if (call != null && invoker != null) {
+                pending.put(name, invoker.callAsync(call.method, call.args));
+            } else {
+                pending.put(name, askDirectly(name, question));
+            }
+        }
+        Map<String, PlayerResult<R>> result = new LinkedHashMap<>();
+        pending.forEach((name, stage) -> {
+            try {
+                result.put(name, PlayerResult.success((R) Futures.await(stage, "call to player '" + name + "'")));
+            } catch (RuntimeException e) {
+                result.put(name, PlayerResult.failure(e));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sends the same one-way notification to every player without waiting,
+     * e.g. {@code p -> p.onMove(move)}. The notification must consist of
+     * exactly one call to a player method; it is serialized once for all the
+     * remote players.
+     */
+    public void tellAll(Consumer<P> notification) {
+        tell(playersConnector.keySet(), notification);
+    }
+
+    public void tell(Collection<String> players, Consumer<P> notification) {
+        Function<P, Object> question = p -> {
+            notification.accept(p);
+            return null;
+        };
+        RecordedCall call = playerType == null || playersInvoker == null ? null : record(question);
+        PreparedCall prepared = call == null ? null : new PreparedCall(call.method, call.args);
+        for (String name : players) {
+            MethodInvoker invoker = playersInvoker == null ? null : playersInvoker.get(name);
+            if (prepared != null && invoker != null) {
+                invoker.asyncCall(prepared);
+            } else {
+                P player = playersConnector.get(name);
+                if (player == null) {
+                    throw new GameException("Unknown player '" + name + "'");
+                }
+                notification.accept(player);
+            }
+        }
+    }
+
+    private CompletionStage<Object> askDirectly(String name, Function<P, ?> question) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        try {
+            P player = playersConnector.get(name);
+            if (player == null) {
+                throw new GameException("Unknown player '" + name + "'");
+            }
+            result.complete(question.apply(player));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private RecordedCall record(Function<P, ?> question) {
+        PlayerInterfaceDescriptor<P> descriptor = PlayerInterfaceDescriptor.of(playerType);
+        RecordedCall call = new RecordedCall();
+        P recorder = (P) Proxy.newProxyInstance(playerType.getClassLoader(), new Class[]{playerType}, (proxy, method, args) -> {
+            MethodDescriptor md = descriptor.getMethod(method);
+            if (md == null || call.method != null) {
+                throw new IllegalArgumentException(RECORD_ERR_MSG);
+            }
+            call.method = method;
+            call.args = args == null ? MethodCall.NO_ARGS : args;
+            return md.getDefaultValue();
+        });
+        question.apply(recorder);
+        if (call.method == null) {
+            throw new IllegalArgumentException(RECORD_ERR_MSG);
+        }
+        return call;
+    }
+
+    private static class RecordedCall {
+
+        private Method method;
+        private Object[] args;
+    }
 }
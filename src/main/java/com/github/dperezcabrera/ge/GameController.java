@@ -15,7 +15,10 @@
  */
 package com.github.dperezcabrera.ge;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  *
@@ -26,4 +29,20 @@ import java.util.Map;
 public interface GameController<P> {
 
     public Map<String, Double> play(Map<String, P> players);
+
+    /**
+     * Plays a match with the players of existing sessions, enclosed between
+     * the start and end events of the match.
+     */
+    public default Map<String, Double> playSessions(Collection<? extends PlayerSession<P>> sessions) {
+        String match = UUID.randomUUID().toString();
+        Map<String, P> players = new LinkedHashMap<>();
+        sessions.forEach(s -> players.put(s.getName(), s.getPlayer()));
+        sessions.forEach(s -> s.startMatch(match));
+        try {
+            return play(players);
+        } finally {
+            sessions.forEach(s -> s.endMatch(match));
+        }
+    }
 }
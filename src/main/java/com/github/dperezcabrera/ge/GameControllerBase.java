@@ -15,8 +15,15 @@
  */
 package com.github.dperezcabrera.ge;
 
+import com.github.dperezcabrera.ge.PlayerExecutorFactory.PlayerExecutor;
 import com.github.dperezcabrera.ge.impl.ExecutorMethodInvoker;
+import com.github.dperezcabrera.ge.impl.PlayerExecutors;
+import com.github.dperezcabrera.ge.journal.JournalingMethodInvoker;
+import com.github.dperezcabrera.ge.journal.MatchJournal;
+import com.github.dperezcabrera.ge.journal.MatchRecorder;
 import com.github.dperezcabrera.ge.st.StateMachineDefinition;
+import com.github.dperezcabrera.ge.st.StateMachineInstance;
+import com.github.dperezcabrera.ge.st.StateObserver;
 import com.github.dperezcabrera.ge.util.Utilities;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -25,49 +32,120 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
 import java.util.function.Supplier;
 
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
 
 /**
+ * Plays the matches of a game. When a {@link MatchJournal} is given every
+ * match is recorded; a failure of the journal is logged and the match goes on
+ * without it.
  *
  * @author David Pérez Cabrera <dperezcabrera@gmail.com>
  * @param <P>
  * @param <E>
  * @param <M>
  */
+@Slf4j
 @AllArgsConstructor
 public class GameControllerBase<P, E extends Enum, M extends GameContext<P>> implements GameController<P> {
 
-    private Class<P> typePlayer;
-    private StateMachineDefinition<E, M> stateMachine;
-    private Supplier<M> contextFactory;
-    private Properties properties;
-    private ConnectorAdapterBuilder playerConnectorFactory;    
-    
-    private void addPlayer(@NonNull String playerName, @NonNull P player, List<ExecutorService> executors, Map<String, P> connectors, Map<Method, Long> timeouts) {
-        ExecutorService executor = Executors.newFixedThreadPool(1);
-        connectors.put(playerName, playerConnectorFactory.connector(typePlayer, new ExecutorMethodInvoker(player, executor, timeouts), timeouts));
+    private final Class<P> typePlayer;
+    private final StateMachineDefinition<E, M> stateMachine;
+    private final Supplier<M> contextFactory;
+    private final Properties properties;
+    private final ConnectorAdapterBuilder playerConnectorFactory;
+    private final PlayerExecutorFactory playerExecutorFactory;
+    private final MatchJournal journal;
+
+    public GameControllerBase(Class<P> typePlayer, StateMachineDefinition<E, M> stateMachine, Supplier<M> contextFactory, Properties properties, ConnectorAdapterBuilder playerConnectorFactory) {
+        this(typePlayer, stateMachine, contextFactory, properties, playerConnectorFactory, PlayerExecutors.dedicatedThread());
+    }
+
+    public GameControllerBase(Class<P> typePlayer, StateMachineDefinition<E, M> stateMachine, Supplier<M> contextFactory, Properties properties, ConnectorAdapterBuilder playerConnectorFactory, PlayerExecutorFactory playerExecutorFactory) {
+        this(typePlayer, stateMachine, contextFactory, properties, playerConnectorFactory, playerExecutorFactory, null);
+    }
+
+    private void addPlayer(@NonNull String playerName, @NonNull P player, List<PlayerExecutor> executors, Map<String, MethodInvoker> invokers, Map<Method, Long> timeouts, MatchRecorder recorder) {
+        PlayerExecutor executor = playerExecutorFactory.create(playerName);
         executors.add(executor);
+        MethodInvoker invoker = new ExecutorMethodInvoker(player, executor, timeouts);
+        if (recorder != null) {
+            invoker = new JournalingMethodInvoker(invoker, recorder, playerName);
+        }
+        invokers.put(playerName, invoker);
     }
 
     @Override
-    public synchronized Map<String, Double> play(Map<String, P> players) {
+    public Map<String, Double> play(Map<String, P> players) {
         Utilities.checkNullOrEmptyArgument(players, "players");
-        Map<Method, Long> timeouts = Utilities.calculateTimeouts(this.typePlayer, this.properties);
-        List<ExecutorService> executors = new ArrayList<>();
+        Map<Method, Long> timeouts = PlayerInterfaceDescriptor.of(typePlayer).resolveTimeouts(properties);
+        List<PlayerExecutor> executors = new ArrayList<>();
+        MatchRecorder recorder = startRecording(players.keySet());
         try {
-            Map<String, P> connectors = new HashMap<>();
-            players.forEach((playerName, player) -> addPlayer(playerName, player, executors, connectors, timeouts));
-            M context = contextFactory.get();
-            context.setPlayersConnector(Collections.unmodifiableMap(connectors));
-            context.setProperties(new Properties(properties));
-            return stateMachine.startInstance(context).execute().getScores();
+            Map<String, MethodInvoker> invokers = new HashMap<>();
+            players.forEach((playerName, player) -> addPlayer(playerName, player, executors, invokers, timeouts, recorder));
+            if (recorder == null) {
+                return execute(invokers, timeouts, null);
+            }
+            Map<String, Double> scores = execute(invokers, timeouts, (state, c) -> record(() -> recorder.state(state), "State " + state));
+            record(() -> recorder.end(scores), "End of match");
+            return scores;
+        } catch (RuntimeException e) {
+            if (recorder != null) {
+                record(() -> recorder.abort(e), "Abort of match");
+            }
+            throw e;
         } finally {
-            executors.forEach(ExecutorService::shutdown);
+            executors.forEach(PlayerExecutor::close);
+            if (recorder != null) {
+                record(recorder::close, "Close of journal");
+            }
         }
     }
+
+    private MatchRecorder startRecording(Set<String> players) {
+        if (journal == null) {
+            return null;
+        }
+        try {
+            return journal.startMatch(players);
+        } catch (RuntimeException e) {
+            log.warn("Match of " + players + " not recorded", e);
+            return null;
+        }
+    }
+
+    private static void record(Runnable action, String what) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.warn(what + " not recorded", e);
+        }
+    }
+
+    /**
+     * Plays a match in the calling thread against the given invokers instead
+     * of player instances, without executors nor journal. Used to replay
+     * recorded matches.
+     */
+    public Map<String, Double> playAgainst(Map<String, MethodInvoker> invokers) {
+        Utilities.checkNullOrEmptyArgument(invokers, "invokers");
+        return execute(invokers, PlayerInterfaceDescriptor.of(typePlayer).resolveTimeouts(properties), null);
+    }
+
+    private Map<String, Double> execute(Map<String, MethodInvoker> invokers, Map<Method, Long> timeouts, StateObserver<E, M> observer) {
+        Map<String, P> connectors = new HashMap<>();
+        invokers.forEach((playerName, invoker) -> connectors.put(playerName, playerConnectorFactory.connector(typePlayer, invoker, timeouts)));
+        M context = contextFactory.get();
+        context.setPlayerType(typePlayer);
+        context.setPlayersInvoker(Collections.unmodifiableMap(invokers));
+        context.setPlayersConnector(Collections.unmodifiableMap(connectors));
+        context.setProperties(new Properties(properties));
+        StateMachineInstance<E, M> instance = observer == null ? stateMachine.startInstance(context) : stateMachine.startInstance(context, observer);
+        return instance.execute().getScores();
+    }
 }
@@ -0,0 +1,95 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge;
+
+import com.github.dperezcabrera.ge.util.Utilities;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import lombok.NonNull;
+
+/**
+ * Runs independent matches of a {@link GameController} concurrently on a pool.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ * @param <P>
+ */
+public class GameRunner<P> implements AutoCloseable {
+
+    private final GameController<P> controller;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+
+    public GameRunner(@NonNull GameController<P> controller) {
+        this(controller, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GameRunner(@NonNull GameController<P> controller, int parallelism) {
+        Utilities.checkMinValueArgument(parallelism, 1, "parallelism");
+        this.controller = controller;
+        this.executor = Executors.newFixedThreadPool(parallelism);
+        this.ownExecutor = true;
+    }
+
+    public GameRunner(@NonNull GameController<P> controller, @NonNull ExecutorService executor) {
+        this.controller = controller;
+        this.executor = executor;
+        this.ownExecutor = false;
+    }
+
+    public CompletableFuture<Map<String, Double>> submit(@NonNull Map<String, P> players) {
+        return CompletableFuture.supplyAsync(() -> controller.play(players), executor);
+    }
+
+    public CompletableFuture<Map<String, Double>> submitSessions(@NonNull Collection<? extends PlayerSession<P>> sessions) {
+        return CompletableFuture.supplyAsync(() -> controller.playSessions(sessions), executor);
+    }
+
+    public List<CompletableFuture<Map<String, Double>>> submitAll(@NonNull Collection<Map<String, P>> matches) {
+        List<CompletableFuture<Map<String, Double>>> result = new ArrayList<>(matches.size());
+        matches.forEach(players -> result.add(submit(players)));
+        return result;
+    }
+
+    public Stream<Map<String, Double>> playAll(@NonNull Collection<Map<String, P>> matches) {
+        return submitAll(matches).stream().map(GameRunner::join);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GameException("Error in match", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+}
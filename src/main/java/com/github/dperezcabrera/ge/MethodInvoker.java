@@ -15,7 +15,10 @@
  */
 package com.github.dperezcabrera.ge;
 
+import com.github.dperezcabrera.ge.io.PreparedCall;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  *
@@ -25,5 +28,31 @@ public interface MethodInvoker {
 
     public void asyncCall(Method m, Object[] parameters);
 
+    /**
+     * One-way call shared by many players; invokers that serialize calls reuse
+     * its encoding.
+     */
+    public default void asyncCall(PreparedCall call) {
+        asyncCall(call.getMethod(), call.getParameters());
+    }
+
     public Object call(Method m, Object[] parameters);
+
+    public default CompletionStage<Object> callAsync(Method m, Object[] parameters) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        try {
+            result.complete(call(m, parameters));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * @return true when the player behind the invoker can not be reached any
+     * more, so its calls fail at once
+     */
+    public default boolean isClosed() {
+        return false;
+    }
 }
@@ -0,0 +1,40 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Provides the executor that runs the calls of one player during one match.
+ * Every executor must run its tasks in submission order.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@FunctionalInterface
+public interface PlayerExecutorFactory {
+
+    public PlayerExecutor create(String playerName);
+
+    public interface PlayerExecutor extends Executor, AutoCloseable {
+
+        /**
+         * Rejects new tasks and waits for the queued ones, so nothing reaches
+         * the player after the end of its match.
+         */
+        @Override
+        public void close();
+    }
+}
@@ -0,0 +1,208 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge;
+
+import com.github.dperezcabrera.ge.annotations.Timeout;
+import com.github.dperezcabrera.ge.util.Utilities;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable view of a player interface computed once per type: method ids,
+ * command names, timeout properties, default return values and invocation
+ * handles.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ * @param <P>
+ */
+@Slf4j
+public final class PlayerInterfaceDescriptor<P> {
+
+    private static final ClassValue<PlayerInterfaceDescriptor<?>> DESCRIPTORS = new ClassValue<PlayerInterfaceDescriptor<?>>() {
+        @Override
+        protected PlayerInterfaceDescriptor<?> computeValue(Class<?> type) {
+            return new PlayerInterfaceDescriptor<>(type);
+        }
+    };
+    private static final Map<Class<?>, Object> DEFAULT_VALUE_PRIMITIVES = initDefaultValuePrimitiveTypes();
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    @Getter
+    private final Class<P> type;
+    @Getter
+    private final List<MethodDescriptor> methods;
+    private final Map<Method, MethodDescriptor> methodIndex;
+    private final Map<String, MethodDescriptor> commandIndex;
+    private final String commandError;
+
+    private PlayerInterfaceDescriptor(Class<P> type) {
+        this.type = type;
+        Timeout timeoutDefault = type.getDeclaredAnnotation(Timeout.class);
+        Method[] typeMethods = type.getMethods();
+        Arrays.sort(typeMethods, Comparator.comparing(Utilities::getCommandName).thenComparing(Method::toGenericString));
+        List<MethodDescriptor> descriptors = new ArrayList<>(typeMethods.length);
+        Map<Method, MethodDescriptor> methodsMap = new HashMap<>();
+        Map<String, MethodDescriptor> commandsMap = new HashMap<>();
+        String error = null;
+        for (Method m : typeMethods) {
+            MethodDescriptor md = new MethodDescriptor(descriptors.size(), m, timeoutDefault);
+            MethodDescriptor previous = commandsMap.putIfAbsent(md.commandName, md);
+            if (previous != null && error == null) {
+                error = "Command name '" + md.commandName + "' was already used in " + m.toGenericString() + "\n and " + previous.method.toGenericString();
+            }
+            descriptors.add(md);
+            methodsMap.put(m, md);
+        }
+        this.methods = Collections.unmodifiableList(descriptors);
+        this.methodIndex = Collections.unmodifiableMap(methodsMap);
+        this.commandIndex = Collections.unmodifiableMap(commandsMap);
+        this.commandError = error;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <P> PlayerInterfaceDescriptor<P> of(@NonNull Class<P> type) {
+        return (PlayerInterfaceDescriptor<P>) DESCRIPTORS.get(type);
+    }
+
+    public MethodDescriptor getMethod(Method method) {
+        return methodIndex.get(method);
+    }
+
+    public MethodDescriptor getMethod(int id) {
+        return methods.get(id);
+    }
+
+    public MethodDescriptor getCommand(String commandName) {
+        return commandIndex.get(commandName);
+    }
+
+    public void checkCommandNames() {
+        if (commandError != null) {
+            throw new GameException(commandError);
+        }
+    }
+
+    public Map<Method, Long> resolveTimeouts(Properties properties) {
+        try {
+            Map<Method, Long> result = new HashMap<>();
+            for (MethodDescriptor md : methods) {
+                result.put(md.method, md.resolveTimeout(properties));
+            }
+            return Collections.unmodifiableMap(result);
+        } catch (Exception e) {
+            throw new GameException("Property timeout error", e);
+        }
+    }
+
+    private static MethodHandle spreadHandle(Method method) {
+        try {
+            method.setAccessible(true);
+            return spread(MethodHandles.lookup().unreflect(method), method.getParameterCount());
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new GameException("Method " + method + " is not accessible", e);
+        }
+    }
+
+    public static MethodHandle spread(MethodHandle handle, int parameterCount) {
+        return handle.asSpreader(Object[].class, parameterCount).asType(INVOKER_TYPE);
+    }
+
+    private static Map<Class<?>, Object> initDefaultValuePrimitiveTypes() {
+        Map<Class<?>, Object> result = new HashMap<>();
+        result.put(boolean.class, false);
+        result.put(byte.class, (byte) 0);
+        result.put(char.class, (char) 0);
+        result.put(double.class, 0d);
+        result.put(float.class, 0f);
+        result.put(int.class, 0);
+        result.put(long.class, 0L);
+        result.put(short.class, (short) 0);
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Getter
+    public static final class MethodDescriptor {
+
+        private final int id;
+        private final Method method;
+        private final String commandName;
+        private final String timeoutProperty;
+        private final Object defaultValue;
+        private final MethodHandle handle;
+        private final Type returnType;
+        @Getter(AccessLevel.NONE)
+        private final Type[] parameterTypes;
+
+        private MethodDescriptor(int id, Method method, Timeout timeoutDefault) {
+            this.id = id;
+            this.method = method;
+            this.commandName = Utilities.getCommandName(method);
+            Timeout timeout = method.getAnnotation(Timeout.class);
+            if (timeout == null) {
+                timeout = timeoutDefault;
+            }
+            if (method.getReturnType() == void.class || timeout == null) {
+                this.timeoutProperty = null;
+            } else {
+                this.timeoutProperty = timeout.value();
+            }
+            this.defaultValue = DEFAULT_VALUE_PRIMITIVES.get(method.getReturnType());
+            this.handle = spreadHandle(method);
+            this.returnType = method.getGenericReturnType();
+            this.parameterTypes = method.getGenericParameterTypes();
+        }
+
+        public Object invoke(Object target, Object[] args) throws Throwable {
+            return handle.invokeExact(target, args);
+        }
+
+        public int getParameterCount() {
+            return parameterTypes.length;
+        }
+
+        public Type getParameterType(int index) {
+            return parameterTypes[index];
+        }
+
+        private Long resolveTimeout(Properties properties) {
+            Long result = null;
+            if (timeoutProperty != null) {
+                if (!properties.containsKey(timeoutProperty)) {
+                    log.warn("Propery \"{}\" not defined", timeoutProperty);
+                } else {
+                    result = Long.parseLong(properties.getProperty(timeoutProperty));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Answer of one player to a fan-out call: either a value or the error that
+ * replaced it.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ * @param <R>
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PlayerResult<R> {
+
+    private final R value;
+    private final RuntimeException error;
+
+    public static <R> PlayerResult<R> success(R value) {
+        return new PlayerResult<>(value, null);
+    }
+
+    public static <R> PlayerResult<R> failure(RuntimeException error) {
+        return new PlayerResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public R get() {
+        if (error != null) {
+            throw error;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,38 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge;
+
+/**
+ * Connection to a player that outlives a match, so the player can play a
+ * series of matches without connecting and authenticating again. Every match
+ * is enclosed between {@link #startMatch(String)} and
+ * {@link #endMatch(String)}.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ * @param <P>
+ */
+public interface PlayerSession<P> {
+
+    public String getName();
+
+    public P getPlayer();
+
+    public void startMatch(String match);
+
+    public void endMatch(String match);
+
+    public boolean isClosed();
+}
@@ -0,0 +1,205 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.annotations.processor;
+
+import com.github.dperezcabrera.ge.ConnectorAdapterBuilderBase;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Writes one connector adapter class per player interface annotated with
+ * {@link com.github.dperezcabrera.ge.annotations.ConnectorAdapter}. Every
+ * method is wired to {@code asyncCall} when it returns void and to
+ * {@code call} or {@code asyncCall} depending on its timeout otherwise.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@SupportedAnnotationTypes("com.github.dperezcabrera.ge.annotations.ConnectorAdapter")
+public class ConnectorAdapterProcessor extends AbstractProcessor {
+
+    private static final String INDENT = "    ";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.INTERFACE) {
+                    generate((TypeElement) element);
+                } else {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@ConnectorAdapter is only allowed on interfaces", element);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = packageElement.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String className = ConnectorAdapterBuilderBase.adapterSimpleName(packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1));
+        List<ExecutableElement> methods = getMethods(type);
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(packageName.isEmpty() ? className : packageName + "." + className, type).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            String typeParameters = typeParameters(type.getTypeParameters());
+            String typeArguments = type.getTypeParameters().isEmpty() ? "" : type.getTypeParameters().stream().map(Object::toString).collect(Collectors.joining(", ", "<", ">"));
+            String typeName = type.getQualifiedName().toString();
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            out.println("public final class " + className + typeParameters + " implements " + typeName + typeArguments + " {");
+            out.println();
+            out.println(INDENT + "private static final Object[] NO_ARGS = new Object[0];");
+            for (int i = 0; i < methods.size(); i++) {
+                out.println(INDENT + "private static final java.lang.reflect.Method M" + i + " = " + methodLookup(typeName, methods.get(i)) + ";");
+            }
+            out.println();
+            out.println(INDENT + "private final com.github.dperezcabrera.ge.MethodInvoker invoker;");
+            for (int i = 0; i < methods.size(); i++) {
+                if (!isVoid(methods.get(i))) {
+                    out.println(INDENT + "private final boolean sync" + i + ";");
+                }
+            }
+            out.println();
+            out.println(INDENT + "public " + className + "(com.github.dperezcabrera.ge.MethodInvoker invoker, java.util.Map<java.lang.reflect.Method, java.lang.Long> timeouts) {");
+            out.println(INDENT + INDENT + "this.invoker = invoker;");
+            for (int i = 0; i < methods.size(); i++) {
+                if (!isVoid(methods.get(i))) {
+                    out.println(INDENT + INDENT + "this.sync" + i + " = timeouts.get(M" + i + ") != null;");
+                }
+            }
+            out.println(INDENT + "}");
+            DeclaredType declaredType = (DeclaredType) type.asType();
+            for (int i = 0; i < methods.size(); i++) {
+                out.println();
+                writeMethod(out, i, methods.get(i), (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declaredType, methods.get(i)));
+            }
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Connector adapter can not be written: " + e.getMessage(), type);
+        }
+    }
+
+    private List<ExecutableElement> getMethods(TypeElement type) {
+        List<ExecutableElement> result = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (!method.getModifiers().contains(Modifier.STATIC) && method.getEnclosingElement().getKind() == ElementKind.INTERFACE) {
+                result.add(method);
+            }
+        }
+        return result;
+    }
+
+    private void writeMethod(PrintWriter out, int index, ExecutableElement method, ExecutableType type) {
+        List<String> parameters = new ArrayList<>();
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < type.getParameterTypes().size(); i++) {
+            parameters.add(type.getParameterTypes().get(i) + " arg" + i);
+            arguments.add("arg" + i);
+        }
+        String throwsClause = type.getThrownTypes().isEmpty() ? "" : type.getThrownTypes().stream().map(Object::toString).collect(Collectors.joining(", ", " throws ", ""));
+        String typeParameters = typeParameters(method.getTypeParameters());
+        out.println(INDENT + "@Override");
+        out.println(INDENT + "public " + (typeParameters.isEmpty() ? "" : typeParameters + " ") + type.getReturnType() + " " + method.getSimpleName() + "(" + String.join(", ", parameters) + ")" + throwsClause + " {");
+        String args = arguments.isEmpty() ? "NO_ARGS" : "new Object[]{" + String.join(", ", arguments) + "}";
+        if (isVoid(method)) {
+            out.println(INDENT + INDENT + "invoker.asyncCall(M" + index + ", " + args + ");");
+        } else {
+            out.println(INDENT + INDENT + "Object[] args = " + args + ";");
+            out.println(INDENT + INDENT + "if (sync" + index + ") {");
+            out.println(INDENT + INDENT + INDENT + "return (" + type.getReturnType() + ") invoker.call(M" + index + ", args);");
+            out.println(INDENT + INDENT + "}");
+            out.println(INDENT + INDENT + "invoker.asyncCall(M" + index + ", args);");
+            out.println(INDENT + INDENT + "return " + defaultValue(type.getReturnType()) + ";");
+        }
+        out.println(INDENT + "}");
+    }
+
+    private String methodLookup(String typeName, ExecutableElement method) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(ConnectorAdapterBuilderBase.class.getName()).append(".method(").append(typeName).append(".class, \"").append(method.getSimpleName()).append('"');
+        method.getParameters().forEach(p -> sb.append(", ").append(processingEnv.getTypeUtils().erasure(p.asType())).append(".class"));
+        return sb.append(')').toString();
+    }
+
+    private static String typeParameters(List<? extends TypeParameterElement> typeParameters) {
+        if (typeParameters.isEmpty()) {
+            return "";
+        }
+        return typeParameters.stream().map(tp -> {
+            String bounds = tp.getBounds().stream()
+                    .filter(b -> !"java.lang.Object".equals(b.toString()))
+                    .map(Object::toString)
+                    .collect(Collectors.joining(" & "));
+            return bounds.isEmpty() ? tp.toString() : tp + " extends " + bounds;
+        }).collect(Collectors.joining(", ", "<", ">"));
+    }
+
+    private static boolean isVoid(ExecutableElement method) {
+        return method.getReturnType().getKind() == TypeKind.VOID;
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case BYTE:
+                return "(byte) 0";
+            case CHAR:
+                return "(char) 0";
+            case SHORT:
+                return "(short) 0";
+            case INT:
+                return "0";
+            case LONG:
+                return "0L";
+            case FLOAT:
+                return "0f";
+            case DOUBLE:
+                return "0d";
+            default:
+                return "null";
+        }
+    }
+}
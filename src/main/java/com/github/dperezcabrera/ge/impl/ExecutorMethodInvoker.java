@@ -15,12 +15,18 @@
  */
 package com.github.dperezcabrera.ge.impl;
 
+import com.github.dperezcabrera.ge.ConnectorAdapterBuilderBase;
 import com.github.dperezcabrera.ge.GameException;
 import com.github.dperezcabrera.ge.MethodInvoker;
+import com.github.dperezcabrera.ge.io.IOMethodInvoker;
+import com.github.dperezcabrera.ge.io.PreparedCall;
+import com.github.dperezcabrera.ge.util.Futures;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -34,66 +40,120 @@ public class ExecutorMethodInvoker implements MethodInvoker {
     private Object player;
     private Executor executor;
     private Map<Method, Long> timeouts;
-    private Map<Object, Response> responses = new HashMap<>();
+    private MethodInvoker connection;
 
     public ExecutorMethodInvoker(Object player, Executor executor, Map<Method, Long> timeouts) {
         this.player = player;
         this.executor = executor;
         this.timeouts = timeouts;
+        this.connection = ConnectorAdapterBuilderBase.invokerOf(player);
     }
 
-    private void doCall(final Method method, final Object[] args, Object mutex) {
+    private void doCall(final Method method, final Object[] args, CompletableFuture<Object> result) {
         try {
-            Object result = method.invoke(player, args);
-            synchronized (mutex) {
-                responses.put(mutex, () -> result);
-                mutex.notify();
-            }
-        } catch (Exception e) {
-            synchronized (mutex) {
-                responses.put(mutex, () -> {
-                    throw new GameException("Error in method " + method, e);
-                });
-            }
+            result.complete(MethodBinding.invoke(player, method, args));
+        } catch (Throwable e) {
+            result.completeExceptionally(new GameException("Error in method " + method, e));
         }
     }
 
     private void doAsyncCall(final Method method, final Object[] args) {
         try {
-            method.invoke(player, args);
-        } catch (Exception e) {
+            MethodBinding.invoke(player, method, args);
+        } catch (Throwable e) {
             log.warn("Error in method " + method, e);
         }
     }
 
     @Override
     public void asyncCall(final Method m, final Object[] parameters) {
+        if (isClosed()) {
+            log.debug("Call to method {} of a disconnected player dropped", m);
+            return;
+        }
         executor.execute(() -> doAsyncCall(m, parameters));
     }
 
+    /**
+     * Players that are connectors hand the prepared call to their own invoker,
+     * so its encoding is shared with the other players.
+     */
     @Override
-    public Object call(Method method, Object[] parameters) {
-        final Object mutex = new Object();
-        synchronized (mutex) {
-            executor.execute(() -> doCall(method, parameters, mutex));
-            try {
-                mutex.wait(timeouts.get(method));
-            } catch (InterruptedException ex) {
-                throw new GameException("Interrupted Exception in call to "+method, ex);
-            }
-            if (!responses.containsKey(mutex)) {
-                responses.put(mutex, () -> {
-                    throw new GameException("TimeOut error in method " + method);
-                });
-            }
+    public void asyncCall(PreparedCall call) {
+        if (isClosed()) {
+            log.debug("Call to method {} of a disconnected player dropped", call.getMethod());
+        } else if (connection == null || timeouts.get(call.getMethod()) != null) {
+            asyncCall(call.getMethod(), call.getParameters());
+        } else {
+            executor.execute(() -> {
+                try {
+                    connection.asyncCall(call);
+                } catch (RuntimeException e) {
+                    log.warn("Error in method " + call.getMethod(), e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public CompletionStage<Object> callAsync(Method method, Object[] parameters) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        if (isClosed()) {
+            result.completeExceptionally(new GameException("Player disconnected in method " + method));
+            return result;
+        }
+        Long timeout = timeouts.get(method);
+        Runnable call = connection instanceof IOMethodInvoker && timeout != null
+                ? () -> remoteCall(method, parameters, result)
+                : () -> doCall(method, parameters, result);
+        try {
+            executor.execute(call);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new GameException("Call rejected in method " + method, e));
+        }
+        if (timeout != null && timeout > 0) {
+            // a zero timeout waits forever, as Object.wait(0) did
+            Futures.withTimeout(result, timeout, () -> new GameException("TimeOut error in method " + method));
         }
-        return responses.remove(mutex).get();
+        return result;
     }
 
-    @FunctionalInterface
-    private interface Response {
+    /**
+     * Sends the call to a remote player through its own invoker, in the queue of
+     * the executor after the previous calls, without blocking the thread until
+     * the response. The call is cancelled when the result times out.
+     */
+    private void remoteCall(Method method, Object[] parameters, CompletableFuture<Object> result) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<Object> call;
+        try {
+            call = connection.callAsync(method, parameters).toCompletableFuture();
+        } catch (RuntimeException e) {
+            result.completeExceptionally(new GameException("Error in method " + method, e));
+            return;
+        }
+        call.whenComplete((response, error) -> {
+            if (error == null) {
+                result.complete(response);
+            } else {
+                result.completeExceptionally(new GameException("Error in method " + method, error));
+            }
+        });
+        result.whenComplete((response, error) -> call.cancel(false));
+    }
 
-        public Object get();
+    @Override
+    public Object call(Method method, Object[] parameters) {
+        return Futures.await(callAsync(method, parameters), "call to " + method);
     }
 
+    /**
+     * @return true when the player is a connector whose session is closed
+     */
+    @Override
+    public boolean isClosed() {
+        return connection != null && connection.isClosed();
+    }
 }
@@ -43,8 +43,8 @@ public class LocalMethodInvoker implements MethodInvoker {
 
     private Object doInvoke(Method m, Object[] parameters) {
         try {
-            return m.invoke(target, parameters);
-        } catch (Exception ex) {
+            return MethodBinding.invoke(target, m, parameters);
+        } catch (Throwable ex) {
             throw new GameException("Error in invocation target: " + target, ex);
         }
     }
@@ -0,0 +1,89 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.impl;
+
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor;
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor.MethodDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Invokes player methods through method handles bound once per
+ * (interface method, implementation class).
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public enum MethodBinding {
+    ;// without instances
+
+    private static final ClassValue<Map<Method, MethodHandle>> BINDINGS = new ClassValue<Map<Method, MethodHandle>>() {
+        @Override
+        protected Map<Method, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    public static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        Class<?> type = target.getClass();
+        Map<Method, MethodHandle> handles = BINDINGS.get(type);
+        MethodHandle handle = handles.get(method);
+        if (handle == null) {
+            handle = handles.computeIfAbsent(method, m -> bind(type, m));
+        }
+        return handle.invokeExact(target, args);
+    }
+
+    private static MethodHandle bind(Class<?> type, Method method) {
+        MethodHandle result = bindImplementation(type, method);
+        if (result == null) {
+            MethodDescriptor md = PlayerInterfaceDescriptor.of(method.getDeclaringClass()).getMethod(method);
+            if (md != null) {
+                result = md.getHandle();
+            } else {
+                result = unreflect(method);
+            }
+        }
+        return result;
+    }
+
+    private static MethodHandle bindImplementation(Class<?> type, Method method) {
+        MethodHandle result = null;
+        if (Modifier.isPublic(type.getModifiers()) && method.getDeclaringClass().isInterface()) {
+            try {
+                Method implementation = type.getMethod(method.getName(), method.getParameterTypes());
+                if (Modifier.isPublic(implementation.getDeclaringClass().getModifiers())) {
+                    result = PlayerInterfaceDescriptor.spread(MethodHandles.publicLookup().unreflect(implementation), method.getParameterCount());
+                }
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                result = null;
+            }
+        }
+        return result;
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            method.setAccessible(true);
+            return PlayerInterfaceDescriptor.spread(MethodHandles.lookup().unreflect(method), method.getParameterCount());
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Method " + method + " is not accessible", e);
+        }
+    }
+}
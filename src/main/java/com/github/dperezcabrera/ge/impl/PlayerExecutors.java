@@ -0,0 +1,91 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.impl;
+
+import com.github.dperezcabrera.ge.GameException;
+import com.github.dperezcabrera.ge.PlayerExecutorFactory;
+import com.github.dperezcabrera.ge.PlayerExecutorFactory.PlayerExecutor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@Slf4j
+public enum PlayerExecutors {
+    ;// without instances
+
+    /**
+     * Maximum time a closed executor waits for its queued tasks, in
+     * milliseconds.
+     */
+    public static final long CLOSE_TIMEOUT = 2000;
+
+    private static final ExecutorService VIRTUAL_THREADS = initVirtualThreads();
+
+    public static PlayerExecutorFactory dedicatedThread() {
+        return playerName -> {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            return new PlayerExecutor() {
+                @Override
+                public void execute(Runnable task) {
+                    executor.execute(task);
+                }
+
+                @Override
+                public void close() {
+                    executor.shutdown();
+                    try {
+                        if (!executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                            log.warn("Calls of player '{}' still running after {} ms", playerName, CLOSE_TIMEOUT);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+        };
+    }
+
+    public static PlayerExecutorFactory sharedPool(@NonNull ExecutorService pool) {
+        return playerName -> new SerialExecutor(pool);
+    }
+
+    public static PlayerExecutorFactory virtualThreads() {
+        if (!isVirtualThreadsSupported()) {
+            throw new GameException("Virtual threads are not supported by this JVM: " + System.getProperty("java.version"));
+        }
+        return sharedPool(VIRTUAL_THREADS);
+    }
+
+    public static boolean isVirtualThreadsSupported() {
+        return VIRTUAL_THREADS != null;
+    }
+
+    private static ExecutorService initVirtualThreads() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Virtual threads not available", e);
+            return null;
+        }
+    }
+}
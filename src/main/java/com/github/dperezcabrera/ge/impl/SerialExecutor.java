@@ -0,0 +1,146 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.impl;
+
+import com.github.dperezcabrera.ge.PlayerExecutorFactory.PlayerExecutor;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs its tasks one by one, in submission order, over a shared executor.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@Slf4j
+public class SerialExecutor implements PlayerExecutor {
+
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private boolean running = false;
+    private boolean closed = false;
+
+    public SerialExecutor(@NonNull Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable task) {
+        synchronized (tasks) {
+            if (closed) {
+                throw new RejectedExecutionException("Executor closed");
+            }
+            tasks.add(task);
+            if (running) {
+                return;
+            }
+            running = true;
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            synchronized (tasks) {
+                running = false;
+                tasks.clear();
+                tasks.notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * An {@link Error} of a task stops this drain, the remaining tasks are
+     * scheduled again before it propagates.
+     */
+    private void drain() {
+        boolean drained = false;
+        try {
+            Runnable task = next();
+            while (task != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Error in task " + task, e);
+                }
+                task = next();
+            }
+            drained = true;
+        } finally {
+            if (!drained) {
+                restart();
+            }
+        }
+    }
+
+    private void restart() {
+        synchronized (tasks) {
+            running = !tasks.isEmpty();
+            if (!running) {
+                tasks.notifyAll();
+                return;
+            }
+        }
+        try {
+            schedule();
+        } catch (RejectedExecutionException e) {
+            log.warn("Tasks dropped", e);
+        }
+    }
+
+    private Runnable next() {
+        synchronized (tasks) {
+            Runnable result = tasks.poll();
+            if (result == null) {
+                running = false;
+                tasks.notifyAll();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Rejects new tasks and waits for the queued ones at most
+     * {@link PlayerExecutors#CLOSE_TIMEOUT} milliseconds.
+     */
+    @Override
+    public void close() {
+        synchronized (tasks) {
+            closed = true;
+            long maxTime = System.currentTimeMillis() + PlayerExecutors.CLOSE_TIMEOUT;
+            long remaining = PlayerExecutors.CLOSE_TIMEOUT;
+            try {
+                while (running && remaining > 0) {
+                    tasks.wait(remaining);
+                    remaining = maxTime - System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (running) {
+                log.warn("Tasks still running after {} ms", PlayerExecutors.CLOSE_TIMEOUT);
+            }
+        }
+    }
+}
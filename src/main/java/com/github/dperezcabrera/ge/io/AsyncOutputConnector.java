@@ -0,0 +1,225 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import com.github.dperezcabrera.ge.util.Utilities;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Asynchronous {@link OutputConnector} that writes from a dedicated thread, so
+ * a slow spectator or log sink never stalls the game. Sent events wait in a
+ * bounded ring buffer; the writer drains every waiting event and flushes once
+ * per batch. When the buffer is full the {@link OverflowPolicy} decides.
+ * <p>
+ * Closing the connector writes the events still waiting and then closes the
+ * stream, without blocking the caller.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@Slf4j
+public class AsyncOutputConnector implements IOConnector {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int BUFFER_SIZE = 8192;
+
+    public enum OverflowPolicy {
+        /**
+         * Discards the oldest waiting event
+         */
+        DROP_OLDEST,
+        /**
+         * Discards the event being sent
+         */
+        DROP_NEWEST,
+        /**
+         * Blocks the sender until there is room
+         */
+        BLOCK,
+        /**
+         * Discards every waiting event and closes the connector
+         */
+        DISCONNECT
+    }
+
+    private final OutputStream outStream;
+    private final OverflowPolicy policy;
+    private final GameEvent[] ring;
+    private final Thread writer;
+    private int head = 0;
+    private int size = 0;
+    private long dropped = 0;
+    private long written = 0;
+    private volatile boolean closed = false;
+
+    public AsyncOutputConnector(OutputStream outStream) {
+        this(outStream, DEFAULT_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    }
+
+    public AsyncOutputConnector(@NonNull OutputStream outStream, int capacity, @NonNull OverflowPolicy policy) {
+        Utilities.checkMinValueArgument(capacity, 1, "capacity");
+        this.outStream = new BufferedOutputStream(outStream, BUFFER_SIZE);
+        this.policy = policy;
+        this.ring = new GameEvent[capacity];
+        this.writer = new Thread(this::write, "game-engine-output-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void send(GameEvent ge) {
+        synchronized (this) {
+            while (!closed && size == ring.length) {
+                switch (policy) {
+                    case DROP_OLDEST:
+                        ring[head] = null;
+                        head = (head + 1) % ring.length;
+                        size--;
+                        dropped++;
+                        break;
+                    case DROP_NEWEST:
+                        dropped++;
+                        return;
+                    case BLOCK:
+                        if (!await()) {
+                            return;
+                        }
+                        break;
+                    default:
+                        log.warn("Output buffer full, disconnecting");
+                        dropped += size + 1L;
+                        discard();
+                        return;
+                }
+            }
+            if (closed) {
+                return;
+            }
+            ring[(head + size) % ring.length] = ge;
+            size++;
+            notifyAll();
+        }
+    }
+
+    private boolean await() {
+        try {
+            wait();
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            dropped++;
+            return false;
+        }
+    }
+
+    private void write() {
+        GameEvent[] batch = new GameEvent[ring.length];
+        int count = next(batch);
+        while (count > 0) {
+            try {
+                for (int i = 0; i < count; i++) {
+                    outStream.write(batch[i].getPayload());
+                    batch[i] = null;
+                }
+                outStream.flush();
+            } catch (IOException ex) {
+                log.error("Error sending", ex);
+                discard();
+                break;
+            }
+            synchronized (this) {
+                written += count;
+            }
+            count = next(batch);
+        }
+        try {
+            outStream.close();
+        } catch (IOException ex) {
+            log.error("Error: close", ex);
+        }
+    }
+
+    private synchronized int next(GameEvent[] batch) {
+        while (size == 0 && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+        }
+        int count = size;
+        for (int i = 0; i < count; i++) {
+            batch[i] = ring[head];
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+        }
+        size = 0;
+        notifyAll();
+        return count;
+    }
+
+    private synchronized void discard() {
+        closed = true;
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = null;
+        }
+        size = 0;
+        notifyAll();
+    }
+
+    /**
+     * Waits until the waiting events are written and the stream is closed,
+     * after {@link #close()}.
+     *
+     * @return false if the time elapsed
+     */
+    public boolean awaitTermination(long timeout) throws InterruptedException {
+        writer.join(timeout);
+        return !writer.isAlive();
+    }
+
+    public synchronized int getQueueDepth() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    public synchronized long getDroppedEvents() {
+        return dropped;
+    }
+
+    public synchronized long getWrittenEvents() {
+        return written;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,405 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor;
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor.MethodDescriptor;
+import com.google.gson.Gson;
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import lombok.NonNull;
+
+/**
+ * Compact binary encoding of the calls of a player interface. A call starts
+ * with the method id of the {@link PlayerInterfaceDescriptor} and a response
+ * flag, followed by the parameters or the response. Integral values are zig-zag
+ * varints, strings are length prefixed UTF-8, and lists, sets, maps and arrays
+ * are a size followed by their elements. Values of any other type fall back to
+ * Gson.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class BinarySerializer implements Serializer<MethodCall, byte[]> {
+
+    private static final Gson GSON = new Gson();
+    private static final int NULL = 0;
+    private static final int NOT_NULL = 1;
+    private static final Map<Class<?>, ValueCodec> PRIMITIVES = initPrimitives();
+    private static final Map<Class<?>, Class<?>> WRAPPERS = initWrappers();
+
+    private static final ValueCodec STRING = new ValueCodec() {
+        @Override
+        public void write(Output out, Object value) {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            out.writeVarint(bytes.length);
+            out.put(bytes);
+        }
+
+        @Override
+        public Object read(ByteBuffer in) {
+            int length = readSize(in);
+            String result = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return result;
+        }
+    };
+
+    private final PlayerInterfaceDescriptor<?> descriptor;
+    private final ValueCodec[][] parameterCodecs;
+    private final ValueCodec[] responseCodecs;
+
+    public BinarySerializer(@NonNull Class<?> type) {
+        descriptor = PlayerInterfaceDescriptor.of(type);
+        List<MethodDescriptor> methods = descriptor.getMethods();
+        parameterCodecs = new ValueCodec[methods.size()][];
+        responseCodecs = new ValueCodec[methods.size()];
+        for (MethodDescriptor md : methods) {
+            ValueCodec[] codecs = new ValueCodec[md.getParameterCount()];
+            for (int i = 0; i < codecs.length; i++) {
+                codecs[i] = codec(md.getParameterType(i));
+            }
+            parameterCodecs[md.getId()] = codecs;
+            responseCodecs[md.getId()] = codec(md.getReturnType() == void.class ? Object.class : md.getReturnType());
+        }
+    }
+
+    @Override
+    public byte[] serialize(@NonNull MethodCall obj) {
+        MethodDescriptor md = descriptor.getMethod(obj.getMethod());
+        if (md == null) {
+            throw new IOGameException("Unknown method " + obj.getMethod());
+        }
+        Output out = new Output();
+        boolean response = obj.isResponse();
+        out.writeVarint(((long) md.getId() << 1) | (response ? 1 : 0));
+        if (response) {
+            responseCodecs[md.getId()].write(out, obj.getResponse());
+        } else {
+            ValueCodec[] codecs = parameterCodecs[md.getId()];
+            if (obj.getParameters().length != codecs.length) {
+                throw new IOGameException("Wrong number of parameters for method " + obj.getMethod());
+            }
+            for (int i = 0; i < codecs.length; i++) {
+                codecs[i].write(out, obj.getParameters()[i]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public MethodCall deserialize(@NonNull byte[] data) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data);
+            long header = readVarint(in);
+            int id = (int) (header >>> 1);
+            if (id >= parameterCodecs.length) {
+                throw new IOGameException("Unknown method id " + id);
+            }
+            MethodDescriptor md = descriptor.getMethod(id);
+            if ((header & 1) == 1) {
+                return MethodCall.response(md.getMethod(), responseCodecs[id].read(in));
+            }
+            ValueCodec[] codecs = parameterCodecs[id];
+            Object[] parameters = codecs.length == 0 ? MethodCall.NO_ARGS : new Object[codecs.length];
+            for (int i = 0; i < codecs.length; i++) {
+                parameters[i] = codecs[i].read(in);
+            }
+            return MethodCall.call(md.getMethod(), parameters);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOGameException("Malformed call", e);
+        }
+    }
+
+    private static ValueCodec codec(Type type) {
+        if (type instanceof Class) {
+            Class<?> c = (Class<?>) type;
+            if (c.isPrimitive()) {
+                return PRIMITIVES.get(c);
+            } else if (c.isArray()) {
+                return nullable(arrayCodec(c.getComponentType()));
+            } else if (WRAPPERS.containsKey(c)) {
+                return nullable(PRIMITIVES.get(WRAPPERS.get(c)));
+            } else if (c == String.class) {
+                return nullable(STRING);
+            } else if (c.isEnum()) {
+                return nullable(enumCodec(c));
+            }
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType pt = (ParameterizedType) type;
+            Type raw = pt.getRawType();
+            Type[] args = pt.getActualTypeArguments();
+            if (raw == List.class || raw == Collection.class) {
+                return nullable(collectionCodec(codec(args[0]), ArrayList::new));
+            } else if (raw == Set.class) {
+                return nullable(collectionCodec(codec(args[0]), LinkedHashSet::new));
+            } else if (raw == Map.class) {
+                return nullable(mapCodec(codec(args[0]), codec(args[1])));
+            }
+        }
+        return nullable(gsonCodec(type));
+    }
+
+    private static ValueCodec nullable(ValueCodec codec) {
+        return new ValueCodec() {
+            @Override
+            public void write(Output out, Object value) {
+                if (value == null) {
+                    out.put(NULL);
+                } else {
+                    out.put(NOT_NULL);
+                    codec.write(out, value);
+                }
+            }
+
+            @Override
+            public Object read(ByteBuffer in) {
+                return in.get() == NULL ? null : codec.read(in);
+            }
+        };
+    }
+
+    private static ValueCodec arrayCodec(Class<?> component) {
+        ValueCodec element = codec(component);
+        return new ValueCodec() {
+            @Override
+            public void write(Output out, Object value) {
+                int length = Array.getLength(value);
+                out.writeVarint(length);
+                for (int i = 0; i < length; i++) {
+                    element.write(out, Array.get(value, i));
+                }
+            }
+
+            @Override
+            public Object read(ByteBuffer in) {
+                int length = readSize(in);
+                Object result = Array.newInstance(component, length);
+                for (int i = 0; i < length; i++) {
+                    Array.set(result, i, element.read(in));
+                }
+                return result;
+            }
+        };
+    }
+
+    private static ValueCodec collectionCodec(ValueCodec element, IntFunction<Collection<Object>> factory) {
+        return new ValueCodec() {
+            @Override
+            public void write(Output out, Object value) {
+                Collection<?> collection = (Collection<?>) value;
+                out.writeVarint(collection.size());
+                for (Object o : collection) {
+                    element.write(out, o);
+                }
+            }
+
+            @Override
+            public Object read(ByteBuffer in) {
+                int size = readSize(in);
+                Collection<Object> result = factory.apply(size);
+                for (int i = 0; i < size; i++) {
+                    result.add(element.read(in));
+                }
+                return result;
+            }
+        };
+    }
+
+    private static ValueCodec mapCodec(ValueCodec key, ValueCodec value) {
+        return new ValueCodec() {
+            @Override
+            public void write(Output out, Object o) {
+                Map<?, ?> map = (Map<?, ?>) o;
+                out.writeVarint(map.size());
+                for (Map.Entry<?, ?> e : map.entrySet()) {
+                    key.write(out, e.getKey());
+                    value.write(out, e.getValue());
+                }
+            }
+
+            @Override
+            public Object read(ByteBuffer in) {
+                int size = readSize(in);
+                Map<Object, Object> result = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    result.put(key.read(in), value.read(in));
+                }
+                return result;
+            }
+        };
+    }
+
+    private static ValueCodec enumCodec(Class<?> type) {
+        Object[] constants = type.getEnumConstants();
+        return new ValueCodec() {
+            @Override
+            public void write(Output out, Object value) {
+                out.writeVarint(((Enum<?>) value).ordinal());
+            }
+
+            @Override
+            public Object read(ByteBuffer in) {
+                long ordinal = readVarint(in);
+                if (ordinal >= constants.length) {
+                    throw new IllegalArgumentException("Invalid ordinal " + ordinal + " for " + type);
+                }
+                return constants[(int) ordinal];
+            }
+        };
+    }
+
+    private static ValueCodec gsonCodec(Type type) {
+        return new ValueCodec() {
+            @Override
+            public void write(Output out, Object value) {
+                STRING.write(out, GSON.toJson(value));
+            }
+
+            @Override
+            public Object read(ByteBuffer in) {
+                return GSON.fromJson((String) STRING.read(in), type);
+            }
+        };
+    }
+
+    private static Map<Class<?>, ValueCodec> initPrimitives() {
+        Map<Class<?>, ValueCodec> result = new HashMap<>();
+        result.put(boolean.class, ValueCodec.of((out, v) -> out.put((Boolean) v ? 1 : 0), in -> in.get() != 0));
+        result.put(byte.class, ValueCodec.of((out, v) -> out.put((Byte) v), ByteBuffer::get));
+        result.put(char.class, ValueCodec.of((out, v) -> out.writeVarint((Character) v), in -> (char) readVarint(in)));
+        result.put(short.class, ValueCodec.of((out, v) -> out.writeSigned((Short) v), in -> (short) readSigned(in)));
+        result.put(int.class, ValueCodec.of((out, v) -> out.writeSigned((Integer) v), in -> (int) readSigned(in)));
+        result.put(long.class, ValueCodec.of((out, v) -> out.writeSigned((Long) v), BinarySerializer::readSigned));
+        result.put(float.class, ValueCodec.of((out, v) -> out.ensure(Float.BYTES).putFloat((Float) v), ByteBuffer::getFloat));
+        result.put(double.class, ValueCodec.of((out, v) -> out.ensure(Double.BYTES).putDouble((Double) v), ByteBuffer::getDouble));
+        return result;
+    }
+
+    private static Map<Class<?>, Class<?>> initWrappers() {
+        Map<Class<?>, Class<?>> result = new HashMap<>();
+        result.put(Boolean.class, boolean.class);
+        result.put(Byte.class, byte.class);
+        result.put(Character.class, char.class);
+        result.put(Short.class, short.class);
+        result.put(Integer.class, int.class);
+        result.put(Long.class, long.class);
+        result.put(Float.class, float.class);
+        result.put(Double.class, double.class);
+        return result;
+    }
+
+    private static int readSize(ByteBuffer in) {
+        long result = readVarint(in);
+        if (result < 0 || result > in.remaining()) {
+            throw new IllegalArgumentException("Invalid size " + result);
+        }
+        return (int) result;
+    }
+
+    static long readVarint(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    static long readSigned(ByteBuffer in) {
+        long value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private interface ValueCodec {
+
+        void write(Output out, Object value);
+
+        Object read(ByteBuffer in);
+
+        static ValueCodec of(BiConsumer<Output, Object> writer, Function<ByteBuffer, Object> reader) {
+            return new ValueCodec() {
+                @Override
+                public void write(Output out, Object value) {
+                    writer.accept(out, value);
+                }
+
+                @Override
+                public Object read(ByteBuffer in) {
+                    return reader.apply(in);
+                }
+            };
+        }
+    }
+
+    private static final class Output {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(64);
+
+        ByteBuffer ensure(int size) {
+            if (buffer.remaining() < size) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+                buffer.flip();
+                buffer = bigger.put(buffer);
+            }
+            return buffer;
+        }
+
+        void put(int b) {
+            ensure(1).put((byte) b);
+        }
+
+        void put(byte[] bytes) {
+            ensure(bytes.length).put(bytes);
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeSigned(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+}
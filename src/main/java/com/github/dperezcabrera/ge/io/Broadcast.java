@@ -0,0 +1,57 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import java.util.Collection;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A {@link GameEvent} sent to many connectors. Its frame is encoded once for
+ * each frame format in use, version and compression, and the same bytes are
+ * written to every connector without copying them.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class Broadcast {
+
+    @Getter
+    private final GameEvent event;
+    private final byte[][] frames = new byte[FrameCodec.FORMATS][];
+
+    public Broadcast(@NonNull GameEvent event) {
+        this.event = event;
+    }
+
+    public void send(@NonNull Collection<? extends IOConnector> connectors) {
+        connectors.forEach(connector -> connector.send(this));
+    }
+
+    /**
+     * @return the shared frame in the format of the codec, it must not be
+     * modified
+     */
+    byte[] frame(FrameCodec codec) {
+        int format = codec.format(event);
+        synchronized (frames) {
+            if (frames[format] == null) {
+                frames[format] = codec.encodeFrame(event, format);
+            }
+            return frames[format];
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import com.github.dperezcabrera.ge.util.Utilities;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link IOConnector} over a non blocking {@link SocketChannel} driven by an
+ * {@link EventLoop}. Reads and writes happen on the loop thread; received
+ * events are queued for {@link #receive()} or pushed to a subscriber.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@Slf4j
+public class ChannelConnector implements IOConnector {
+
+    private static final GameEvent CLOSED = new GameEvent("closed");
+
+    private final SocketChannel channel;
+    private final Executor loop;
+    private final BlockingQueue<GameEvent> inbound = new LinkedBlockingQueue<>();
+    private final Queue<ByteBuffer[]> outbound = new ArrayDeque<>();
+    private final FrameCodec codec = new FrameCodec();
+    private SelectionKey key;
+    private Consumer<GameEvent> listener;
+    private Runnable closeListener;
+    private boolean closeRequested = false;
+    private volatile boolean closed = false;
+
+    ChannelConnector(SocketChannel channel, Executor loop) {
+        this.channel = channel;
+        this.loop = loop;
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    @Override
+    public void send(GameEvent ge) {
+        ByteBuffer[] buffer = codec.encode(ge);
+        synchronized (outbound) {
+            if (closed) {
+                return;
+            }
+            outbound.add(buffer);
+        }
+        loop.execute(this::flushWrites);
+    }
+
+    @Override
+    public void send(Broadcast broadcast) {
+        ByteBuffer[] buffer = {ByteBuffer.wrap(broadcast.frame(codec)).asReadOnlyBuffer()};
+        synchronized (outbound) {
+            if (closed) {
+                return;
+            }
+            outbound.add(buffer);
+        }
+        loop.execute(this::flushWrites);
+    }
+
+    @Override
+    public GameEvent receive() {
+        try {
+            GameEvent result = inbound.take();
+            if (result == CLOSED) {
+                inbound.add(CLOSED);
+                throw new IOGameException("Connection closed");
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOGameException("Interrupted receive", e);
+        }
+    }
+
+    @Override
+    public GameEvent receive(long timeout) {
+        try {
+            GameEvent result = timeout > 0 ? inbound.poll(timeout, TimeUnit.MILLISECONDS) : inbound.take();
+            if (result == CLOSED) {
+                inbound.add(CLOSED);
+                result = null;
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public void setFrameVersion(int version) {
+        codec.setVersion(version);
+    }
+
+    @Override
+    public void setCompressionThreshold(int threshold) {
+        codec.setCompressionThreshold(threshold);
+    }
+
+    @Override
+    public boolean subscribe(Consumer<GameEvent> events, Runnable onClose) {
+        loop.execute(() -> {
+            GameEvent e = inbound.poll();
+            while (e != null && e != CLOSED) {
+                events.accept(e);
+                e = inbound.poll();
+            }
+            listener = events;
+            closeListener = onClose;
+            if (e == CLOSED || !channel.isOpen()) {
+                onClose.run();
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        synchronized (outbound) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        loop.execute(() -> {
+            closeRequested = true;
+            flushWrites();
+        });
+    }
+
+    void onReady(SelectionKey key) {
+        try {
+            if (key.isValid() && key.isReadable()) {
+                onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                flushWrites();
+            }
+        } catch (IOException e) {
+            log.debug("Error in channel " + channel, e);
+            closeChannel();
+        }
+    }
+
+    private void onReadable() throws IOException {
+        if (codec.fill(channel) < 0) {
+            closeChannel();
+            return;
+        }
+        GameEvent e = codec.next();
+        while (e != null) {
+            deliver(e);
+            e = codec.next();
+        }
+    }
+
+    private void deliver(GameEvent e) {
+        if (listener == null) {
+            inbound.add(e);
+        } else {
+            try {
+                listener.accept(e);
+            } catch (RuntimeException ex) {
+                log.warn("Error dispatching event '" + e.getCommand() + "'", ex);
+                closeChannel();
+            }
+        }
+    }
+
+    private void flushWrites() {
+        try {
+            synchronized (outbound) {
+                ByteBuffer[] buffer = outbound.peek();
+                while (buffer != null) {
+                    channel.write(buffer);
+                    if (buffer[buffer.length - 1].hasRemaining()) {
+                        interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    outbound.poll();
+                    buffer = outbound.peek();
+                }
+            }
+            interestOps(SelectionKey.OP_READ);
+            if (closeRequested) {
+                closeChannel();
+            }
+        } catch (IOException e) {
+            log.debug("Error writing in channel " + channel, e);
+            closeChannel();
+        }
+    }
+
+    private void interestOps(int ops) {
+        if (key != null && key.isValid() && key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+    }
+
+    void closeChannel() {
+        closed = true;
+        if (key != null) {
+            key.cancel();
+        }
+        if (channel.isOpen()) {
+            Utilities.close(channel);
+            codec.end();
+            inbound.add(CLOSED);
+            if (closeListener != null) {
+                closeListener.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import com.github.dperezcabrera.ge.util.Utilities;
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A fixed number of selector threads driving non blocking
+ * {@link SocketChannel}s. Each registered channel is bound to one thread and
+ * exposed as a {@link ChannelConnector}.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@Slf4j
+public class EventLoop implements AutoCloseable {
+
+    private final Worker[] workers;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public EventLoop() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public EventLoop(int threads) {
+        Utilities.checkMinValueArgument(threads, 1, "threads");
+        workers = new Worker[threads];
+        try {
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Worker("game-engine-event-loop-" + i);
+            }
+        } catch (IOException e) {
+            close();
+            throw new IOGameException("Error opening selector", e);
+        }
+    }
+
+    public ChannelConnector register(@NonNull SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Worker worker = workers[Math.floorMod(next.getAndIncrement(), workers.length)];
+        if (worker.closed) {
+            throw new IOGameException("Event loop closed");
+        }
+        ChannelConnector result = new ChannelConnector(channel, worker);
+        worker.execute(() -> {
+            try {
+                result.setKey(channel.register(worker.selector, SelectionKey.OP_READ, result));
+            } catch (IOException e) {
+                log.error("Error registering channel", e);
+                result.closeChannel();
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void close() {
+        for (Worker worker : workers) {
+            if (worker != null) {
+                worker.close();
+            }
+        }
+    }
+
+    private static class Worker implements Executor {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        private volatile boolean closed = false;
+
+        Worker(String name) throws IOException {
+            selector = Selector.open();
+            thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            if (Thread.currentThread() != thread) {
+                selector.wakeup();
+            }
+        }
+
+        private void run() {
+            try {
+                while (!closed) {
+                    selector.select();
+                    runTasks();
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        ((ChannelConnector) key.attachment()).onReady(key);
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                log.error("Event loop stopped", e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    ((ChannelConnector) key.attachment()).closeChannel();
+                }
+                Utilities.close(selector);
+            }
+        }
+
+        private void runTasks() {
+            Runnable task = tasks.poll();
+            while (task != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Error in task " + task, e);
+                }
+                task = tasks.poll();
+            }
+        }
+
+        void close() {
+            closed = true;
+            selector.wakeup();
+        }
+    }
+}
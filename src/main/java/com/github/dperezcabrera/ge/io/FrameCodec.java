@@ -0,0 +1,381 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Length prefixed {@link GameEvent} frames. Input is read in bulk into a
+ * reusable buffer and events are decoded straight from it; partially received
+ * frames stay buffered until the rest arrives. Output is encoded in a single
+ * buffer (streams) or as header and payload buffers for gathering writes
+ * (channels). Instances are not thread safe.
+ * <p>
+ * Version 1 frames are the command, a ':' and the payload. Version 2 frames
+ * start with a magic byte, a flags byte and the length of the UTF-8 command,
+ * so they are decoded without scanning. Both versions are always accepted;
+ * {@link #setVersion(int)} selects the one written. Version 2 payloads larger
+ * than the compression threshold are deflated with the connection's reusable
+ * {@link Deflater} and flagged in the header. The connection releases them
+ * with {@link #end()} when it is closed.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class FrameCodec {
+
+    public static final int HEADER_SIZE = Integer.BYTES;
+    public static final int DEFAULT_MAX_FRAME_SIZE = 64 * 1024 * 1024;
+    public static final int VERSION_1 = 1;
+    public static final int VERSION_2 = 2;
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private static final byte MAGIC_V2 = 2;
+    private static final int HEADER_V2_SIZE = 4;
+    private static final int MAX_COMMAND_SIZE = 0xFFFF;
+    private static final int FLAG_DEFLATE = 1;
+    static final int FORMAT_V1 = 0;
+    static final int FORMAT_V2 = 1;
+    static final int FORMAT_V2_DEFLATE = 2;
+    static final int FORMATS = 3;
+
+    private final int maxFrameSize;
+    private volatile int version = VERSION_1;
+    private volatile int compressionThreshold = 0;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Inflater inflater = new Inflater();
+    private volatile boolean ended = false;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE).flip();
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    public FrameCodec() {
+        this(DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    public FrameCodec(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Blocks until a whole event has been read.
+     */
+    public GameEvent read(InputStream in) throws IOException {
+        GameEvent result = next();
+        while (result == null) {
+            if (fill(in) < 0) {
+                throw new EOFException("End of stream");
+            }
+            result = next();
+        }
+        return result;
+    }
+
+    /**
+     * Reads the available bytes, -1 at the end of the stream.
+     */
+    public int fill(InputStream in) throws IOException {
+        prepareFill();
+        try {
+            int result = in.read(readBuffer.array(), readBuffer.arrayOffset() + readBuffer.position(), readBuffer.remaining());
+            if (result > 0) {
+                readBuffer.position(readBuffer.position() + result);
+            }
+            return result;
+        } finally {
+            readBuffer.flip();
+        }
+    }
+
+    /**
+     * Reads the available bytes, -1 at the end of the stream.
+     */
+    public int fill(ReadableByteChannel channel) throws IOException {
+        prepareFill();
+        try {
+            return channel.read(readBuffer);
+        } finally {
+            readBuffer.flip();
+        }
+    }
+
+    /**
+     * @return the next buffered event or null when there is no whole frame
+     */
+    public GameEvent next() throws IOException {
+        if (readBuffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int size = frameSize();
+        if (readBuffer.remaining() < HEADER_SIZE + size) {
+            return null;
+        }
+        int start = readBuffer.position() + HEADER_SIZE;
+        readBuffer.position(start + size);
+        return decode(readBuffer.array(), readBuffer.arrayOffset() + start, size);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        if (version != VERSION_1 && version != VERSION_2) {
+            throw new IOGameException("Unsupported frame version " + version);
+        }
+        this.version = version;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * @param compressionThreshold minimum payload size compressed in version 2
+     * frames, 0 disables the compression
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = Math.max(0, compressionThreshold);
+    }
+
+    /**
+     * Releases the native memory of the compressor and the decompressor. Later
+     * frames are written uncompressed and compressed frames are not decoded.
+     */
+    public void end() {
+        synchronized (deflater) {
+            ended = true;
+            deflater.end();
+        }
+        synchronized (inflater) {
+            inflater.end();
+        }
+    }
+
+    public boolean hasPartialFrame() {
+        return readBuffer.hasRemaining();
+    }
+
+    private int frameSize() throws IOException {
+        int result = readBuffer.getInt(readBuffer.position());
+        if (result < 0 || result > maxFrameSize) {
+            throw new IOException("Invalid frame size " + result);
+        }
+        return result;
+    }
+
+    private void prepareFill() throws IOException {
+        int required = INITIAL_BUFFER_SIZE;
+        if (readBuffer.remaining() >= HEADER_SIZE) {
+            required = Math.max(required, HEADER_SIZE + frameSize());
+        }
+        if (readBuffer.capacity() < required) {
+            readBuffer = ByteBuffer.allocate(Math.max(required, readBuffer.capacity() * 2)).put(readBuffer);
+        } else {
+            readBuffer.compact();
+        }
+    }
+
+    GameEvent decode(byte[] frame, int offset, int length) throws IOException {
+        if (length > 0 && frame[offset] == MAGIC_V2) {
+            return decodeV2(frame, offset, length);
+        }
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (frame[i] == GameEvent.SEPARATOR) {
+                return new GameEvent(new String(frame, offset, i - offset), Arrays.copyOfRange(frame, i + 1, end));
+            }
+        }
+        throw new IOException("Frame without command");
+    }
+
+    private GameEvent decodeV2(byte[] frame, int offset, int length) throws IOException {
+        if (length < HEADER_V2_SIZE) {
+            throw new IOException("Truncated frame");
+        }
+        int flags = frame[offset + 1];
+        if ((flags & ~FLAG_DEFLATE) != 0) {
+            throw new IOException("Unsupported frame flags " + flags);
+        }
+        int commandSize = ((frame[offset + 2] & 0xFF) << 8) | (frame[offset + 3] & 0xFF);
+        int payloadStart = offset + HEADER_V2_SIZE + commandSize;
+        if (payloadStart > offset + length) {
+            throw new IOException("Truncated frame");
+        }
+        String command = new String(frame, offset + HEADER_V2_SIZE, commandSize, StandardCharsets.UTF_8);
+        if ((flags & FLAG_DEFLATE) != 0) {
+            return new GameEvent(command, inflate(frame, payloadStart, offset + length - payloadStart));
+        }
+        return new GameEvent(command, Arrays.copyOfRange(frame, payloadStart, offset + length));
+    }
+
+    public void write(OutputStream out, GameEvent event) throws IOException {
+        int v = version;
+        byte[] command = commandBytes(event, v);
+        byte[] payload = event.getPayload();
+        byte[] compressed = compress(payload, v);
+        if (compressed != null) {
+            payload = compressed;
+        }
+        int size = headerSize(command, v) + payload.length;
+        if (writeBuffer.capacity() < size) {
+            writeBuffer = ByteBuffer.allocate(size);
+        }
+        writeBuffer.clear();
+        putHeader(writeBuffer, command, payload.length, v, compressed != null).put(payload);
+        out.write(writeBuffer.array(), 0, writeBuffer.position());
+        out.flush();
+    }
+
+    /**
+     * @return the header and the payload of the frame, ready for a gathering
+     * write
+     */
+    public ByteBuffer[] encode(GameEvent event) {
+        int v = version;
+        byte[] command = commandBytes(event, v);
+        byte[] payload = event.getPayload();
+        byte[] compressed = compress(payload, v);
+        if (compressed != null) {
+            payload = compressed;
+        }
+        ByteBuffer header = putHeader(ByteBuffer.allocate(headerSize(command, v)), command, payload.length, v, compressed != null);
+        return new ByteBuffer[]{header.flip(), ByteBuffer.wrap(payload)};
+    }
+
+    /**
+     * @return the format the event is written with now, one of
+     * {@link #FORMAT_V1}, {@link #FORMAT_V2} or {@link #FORMAT_V2_DEFLATE}
+     */
+    int format(GameEvent event) {
+        if (version == VERSION_1) {
+            return FORMAT_V1;
+        }
+        int threshold = compressionThreshold;
+        return threshold != 0 && event.getPayload().length >= threshold ? FORMAT_V2_DEFLATE : FORMAT_V2;
+    }
+
+    /**
+     * @return the whole frame of the event in the given format, see
+     * {@link #format(GameEvent)}
+     */
+    byte[] encodeFrame(GameEvent event, int format) {
+        int v = format == FORMAT_V1 ? VERSION_1 : VERSION_2;
+        byte[] command = commandBytes(event, v);
+        byte[] payload = event.getPayload();
+        byte[] compressed = format == FORMAT_V2_DEFLATE ? deflate(payload) : null;
+        if (compressed != null) {
+            payload = compressed;
+        }
+        byte[] result = new byte[headerSize(command, v) + payload.length];
+        putHeader(ByteBuffer.wrap(result), command, payload.length, v, compressed != null).put(payload);
+        return result;
+    }
+
+    private static byte[] commandBytes(GameEvent event, int version) {
+        if (version == VERSION_1) {
+            return event.getCommand().getBytes();
+        }
+        byte[] result = event.getCommand().getBytes(StandardCharsets.UTF_8);
+        if (result.length > MAX_COMMAND_SIZE) {
+            throw new IOGameException("Command too long: " + result.length + " bytes");
+        }
+        return result;
+    }
+
+    private static int headerSize(byte[] command, int version) {
+        return HEADER_SIZE + command.length + (version == VERSION_1 ? 1 : HEADER_V2_SIZE);
+    }
+
+    private static ByteBuffer putHeader(ByteBuffer buffer, byte[] command, int payloadSize, int version, boolean deflated) {
+        int size = headerSize(command, version) - HEADER_SIZE + payloadSize;
+        if (version == VERSION_1) {
+            return buffer.putInt(size).put(command).put((byte) GameEvent.SEPARATOR);
+        }
+        return buffer.putInt(size).put(MAGIC_V2).put((byte) (deflated ? FLAG_DEFLATE : 0)).putShort((short) command.length).put(command);
+    }
+
+    /**
+     * @return the original size followed by the deflated payload, or null when
+     * the payload is not compressed
+     */
+    private byte[] compress(byte[] payload, int version) {
+        int threshold = compressionThreshold;
+        if (version == VERSION_1 || threshold == 0 || payload.length < threshold) {
+            return null;
+        }
+        return deflate(payload);
+    }
+
+    private byte[] deflate(byte[] payload) {
+        synchronized (deflater) {
+            if (ended) {
+                return null;
+            }
+            deflater.reset();
+            deflater.setInput(payload);
+            deflater.finish();
+            byte[] result = new byte[Integer.BYTES + payload.length];
+            ByteBuffer.wrap(result).putInt(payload.length);
+            int size = Integer.BYTES;
+            while (!deflater.finished() && size < result.length) {
+                size += deflater.deflate(result, size, result.length - size);
+            }
+            return deflater.finished() ? Arrays.copyOf(result, size) : null;
+        }
+    }
+
+    private byte[] inflate(byte[] data, int offset, int length) throws IOException {
+        if (length < Integer.BYTES) {
+            throw new IOException("Truncated compressed payload");
+        }
+        int size = ByteBuffer.wrap(data, offset, Integer.BYTES).getInt();
+        if (size < 0 || size > maxFrameSize) {
+            throw new IOException("Invalid payload size " + size);
+        }
+        byte[] result = new byte[size];
+        synchronized (inflater) {
+            if (ended) {
+                throw new IOException("Codec ended");
+            }
+            inflater.reset();
+            inflater.setInput(data, offset + Integer.BYTES, length - Integer.BYTES);
+            try {
+                int count = 0;
+                while (count < size && !inflater.finished()) {
+                    int n = inflater.inflate(result, count, size - count);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    count += n;
+                }
+                if (count != size) {
+                    throw new IOException("Corrupted compressed payload");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted compressed payload", e);
+            }
+        }
+        return result;
+    }
+}
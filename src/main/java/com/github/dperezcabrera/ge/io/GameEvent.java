@@ -15,6 +15,7 @@
  */
 package com.github.dperezcabrera.ge.io;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import lombok.AllArgsConstructor;
@@ -32,7 +33,7 @@ import lombok.NonNull;
 public class GameEvent {
 
     public static final GameEvent EXIT = new GameEvent("exit");
-    private static final char SEPARATOR = ':';
+    static final char SEPARATOR = ':';
 
     @NonNull
     private String command;
@@ -68,6 +69,13 @@ public class GameEvent {
         return new GameEvent(frame);
     }
 
+    /**
+     * @return a read only view of the payload
+     */
+    public ByteBuffer getPayloadBuffer() {
+        return ByteBuffer.wrap(payload).asReadOnlyBuffer();
+    }
+
     public byte[] toFrame() {
         byte[] commandBytes = this.command.getBytes();
         int size = commandBytes.length + 1 + payload.length;
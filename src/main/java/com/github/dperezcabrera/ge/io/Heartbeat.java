@@ -0,0 +1,152 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import com.github.dperezcabrera.ge.util.Utilities;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watches the sessions of remote players. A session silent for the interval
+ * is pinged and a session silent for the timeout is disconnected, so its
+ * pending calls fail at once instead of waiting out their own timeouts.
+ *
+ * The beats run on their own thread and the pings on a pool, one at a time
+ * per session: a peer that stops reading blocks only its own ping, never the
+ * beats nor the timeouts of the calls. Peers answer the pings while their
+ * players are busy when they receive with a call executor, see
+ * {@link IOMethodInvoker#setCallExecutor}.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@Slf4j
+public class Heartbeat implements AutoCloseable {
+
+    public static final long DEFAULT_INTERVAL = 1000;
+    public static final long DEFAULT_TIMEOUT = 10000;
+
+    @Getter
+    private final long interval;
+    @Getter
+    private final long timeout;
+    private final Map<IOMethodInvoker, Long> sessions = new ConcurrentHashMap<>();
+    private final Set<IOMethodInvoker> pinging = ConcurrentHashMap.newKeySet();
+    private final AtomicLong deadSessions = new AtomicLong();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService pings;
+
+    public Heartbeat() {
+        this(DEFAULT_INTERVAL, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param interval silence before a ping, in milliseconds
+     * @param timeout silence before the disconnection, in milliseconds
+     */
+    public Heartbeat(long interval, long timeout) {
+        Utilities.checkMinValueArgument(interval, 1, "interval");
+        Utilities.checkMinValueArgument(timeout, interval + 1, "timeout");
+        this.interval = interval;
+        this.timeout = timeout;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "game-engine-heartbeat"));
+        this.pings = Executors.newCachedThreadPool(r -> daemon(r, "game-engine-ping"));
+        scheduler.scheduleWithFixedDelay(this::beat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    public void watch(@NonNull IOMethodInvoker session) {
+        sessions.put(session, System.currentTimeMillis());
+    }
+
+    public void unwatch(@NonNull IOMethodInvoker session) {
+        sessions.remove(session);
+    }
+
+    public int getSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * @return the number of sessions disconnected by the heartbeat
+     */
+    public long getDeadSessions() {
+        return deadSessions.get();
+    }
+
+    void beat() {
+        long now = System.currentTimeMillis();
+        sessions.forEach((session, since) -> {
+            try {
+                if (session.isClosed()) {
+                    sessions.remove(session);
+                } else {
+                    long silence = now - Math.max(since, session.getLastActivity());
+                    if (silence >= timeout) {
+                        log.info("Session silent for {} ms, disconnecting", silence);
+                        sessions.remove(session);
+                        deadSessions.incrementAndGet();
+                        session.disconnect();
+                    } else if (silence >= interval) {
+                        ping(session);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Error in heartbeat", e);
+            }
+        });
+    }
+
+    private void ping(IOMethodInvoker session) {
+        if (pinging.add(session)) {
+            try {
+                pings.execute(() -> {
+                    try {
+                        session.ping();
+                    } catch (RuntimeException e) {
+                        log.debug("Error in ping", e);
+                    } finally {
+                        pinging.remove(session);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                pinging.remove(session);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        pings.shutdownNow();
+        sessions.clear();
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.github.dperezcabrera.ge.io;
 
+import java.util.function.Consumer;
+
 /**
  *
  * @author David Pérez Cabrera <dperezcabrera@gmail.com>
@@ -30,6 +32,11 @@ public interface IOConnector extends AutoCloseable {
         throw new UnsupportedOperationException("Not supported.");
     }
 
+    /**
+     * @param timeout the time to wait in milliseconds, a timeout not positive
+     * waits without limit
+     * @return the event or null when the time ends or the connection is closed
+     */
     default GameEvent receive(long timeout){
         throw new UnsupportedOperationException("Not supported.");
     }
@@ -38,4 +45,38 @@ public interface IOConnector extends AutoCloseable {
         throw new UnsupportedOperationException("Not supported.");
     }
 
+    /**
+     * Sends an event shared with other connectors. Framed connectors write
+     * the shared frame instead of encoding the event again.
+     */
+    default void send(Broadcast broadcast) {
+        send(broadcast.getEvent());
+    }
+
+    /**
+     * Selects the {@link FrameCodec} version of the frames sent from now on.
+     * Connectors without frame versions ignore it.
+     */
+    default void setFrameVersion(int version) {
+    }
+
+    /**
+     * Sets the minimum payload size of the frames compressed from now on, 0
+     * disables the compression. It only applies to version 2 frames.
+     */
+    default void setCompressionThreshold(int threshold) {
+    }
+
+    /**
+     * Asks the connector to push the received events instead of waiting for
+     * {@link #receive()} calls.
+     *
+     * @param events called with every received event
+     * @param onClose called once when the connection is closed
+     * @return false when the connector can not push events
+     */
+    default boolean subscribe(Consumer<GameEvent> events, Runnable onClose) {
+        return false;
+    }
+
 }
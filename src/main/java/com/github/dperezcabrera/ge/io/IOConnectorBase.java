@@ -15,120 +15,213 @@
  */
 package com.github.dperezcabrera.ge.io;
 
+import com.github.dperezcabrera.ge.util.Utilities;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
+ * Sends and receives length prefixed frames over a pair of streams. Timed
+ * receives use the socket read timeout when the connector wraps a
+ * {@link Socket}; otherwise a single reader thread per connection is started
+ * on the first timed receive and feeds a queue from then on.
  *
  * @author David Pérez Cabrera <dperezcabrera@gmail.com>
  */
 @Slf4j
-@RequiredArgsConstructor
 public class IOConnectorBase implements IOConnector {
 
-    @NonNull
-    private InputStream inStream;
+    private static final GameEvent CLOSED = new GameEvent("closed");
 
-    @NonNull
-    private OutputStream outStream;
-    private boolean closed = false;
+    private final InputStream inStream;
+    private final OutputStream outStream;
+    private final Socket socket;
+    private final Object readLock = new Object();
+    private final Object writeLock = new Object();
+    private final FrameCodec codec = new FrameCodec();
+    private BlockingQueue<GameEvent> inbound;
+    private volatile boolean closed = false;
+
+    public IOConnectorBase(@NonNull InputStream inStream, @NonNull OutputStream outStream) {
+        this(inStream, outStream, null);
+    }
+
+    public IOConnectorBase(@NonNull Socket socket) throws IOException {
+        this(socket.getInputStream(), socket.getOutputStream(), socket);
+    }
+
+    private IOConnectorBase(InputStream inStream, OutputStream outStream, Socket socket) {
+        this.inStream = inStream;
+        this.outStream = outStream;
+        this.socket = socket;
+    }
 
     @Override
     public void send(GameEvent ge) {
-        write(ge.toFrame());
+        synchronized (writeLock) {
+            if (!closed) {
+                try {
+                    codec.write(outStream, ge);
+                } catch (IOException ex) {
+                    log.error("Error sending", ex);
+                    close();
+                }
+            }
+        }
     }
 
     @Override
-    public GameEvent receive() {
-        return new GameEvent(read());
+    public void send(Broadcast broadcast) {
+        synchronized (writeLock) {
+            if (!closed) {
+                try {
+                    outStream.write(broadcast.frame(codec));
+                    outStream.flush();
+                } catch (IOException ex) {
+                    log.error("Error sending", ex);
+                    close();
+                }
+            }
+        }
     }
 
     @Override
-    public GameEvent receive(long timeout) {
-        return new GameEvent(read(timeout));
+    public void setFrameVersion(int version) {
+        codec.setVersion(version);
     }
 
-    private void write(byte[] frame) {
-        if (!closed) {
-            try {
-                byte[] length = ByteBuffer.allocate(Integer.SIZE / Byte.SIZE).putInt(frame.length).array();
-                outStream.write(length);
-                outStream.write(frame);
-                outStream.flush();
-            } catch (IOException ex) {
-                log.error("Error sending", ex);
-                close();
-            }
-        }
+    @Override
+    public void setCompressionThreshold(int threshold) {
+        codec.setCompressionThreshold(threshold);
     }
 
-    private void readFully(byte[] buffer) throws IOException {
-        for (int i = 0; i < buffer.length; i++) {
-            buffer[i] = (byte) inStream.read();
+    @Override
+    public GameEvent receive() {
+        GameEvent result;
+        synchronized (readLock) {
+            result = inbound == null ? read() : take();
         }
+        if (result == null) {
+            throw new IOGameException("Connection closed");
+        }
+        return result;
     }
 
-    private byte[] readFrame() throws IOException {
-        byte[] sizeBuffer = ByteBuffer.allocate(Integer.SIZE / Byte.SIZE).putInt(0).array();
-        readFully(sizeBuffer);
-        int size = ByteBuffer.wrap(sizeBuffer).getInt();
-        byte[] result = new byte[size];
-        readFully(result);
-        return result;
+    @Override
+    public GameEvent receive(long timeout) {
+        synchronized (readLock) {
+            if (closed) {
+                return null;
+            } else if (timeout <= 0 && inbound == null) {
+                return read();
+            } else if (socket != null) {
+                return read(timeout);
+            }
+            if (inbound == null) {
+                startReader();
+            }
+            return poll(timeout);
+        }
     }
 
-    private byte[] read() {
-        byte[] result = null;
+    private GameEvent read() {
+        GameEvent result = null;
         try {
             if (!closed) {
-                result = readFrame();
+                result = codec.read(inStream);
             }
         } catch (IOException ex) {
-            log.error("Error receiving", ex);
+            if (!closed) {
+                log.error("Error receiving", ex);
+            }
             close();
         }
         return result;
     }
 
-    private byte[] read(long timeout) {
-        byte[] result = null;
-        if (!closed) {
-            final Object mutex = new Object();
-            final byte[][] cache = {null};
-            Thread t = new Thread(() -> {
-                try {
-                    cache[0] = readFrame();
-                } catch (IOException ex) {
-                    log.error("Error receiving " + timeout, ex);
+    private GameEvent read(long timeout) {
+        long maxTime = System.currentTimeMillis() + timeout;
+        try {
+            GameEvent result = codec.next();
+            long remaining = timeout;
+            while (result == null && remaining > 0) {
+                socket.setSoTimeout((int) Math.min(remaining, Integer.MAX_VALUE));
+                if (codec.fill(inStream) < 0) {
                     close();
-                } finally {
-                    synchronized (mutex) {
-                        mutex.notify();
-                    }
-                }
-            });
-            synchronized (mutex) {
-                try {
-                    t.start();
-                    mutex.wait(timeout);
-                    result = cache[0];
-                } catch (InterruptedException ex) {
-                    // interrupted
-                    log.debug("Interrupted read " + timeout, ex);
-                    Thread.currentThread().interrupt();
+                    return null;
                 }
+                result = codec.next();
+                remaining = maxTime - System.currentTimeMillis();
+            }
+            return result;
+        } catch (SocketTimeoutException ex) {
+            return null; // the bytes of a partial frame stay in the codec
+        } catch (IOException ex) {
+            log.error("Error receiving " + timeout, ex);
+            close();
+            return null;
+        } finally {
+            resetSoTimeout();
+        }
+    }
+
+    private void resetSoTimeout() {
+        try {
+            if (!socket.isClosed()) {
+                socket.setSoTimeout(0);
             }
-            if (t.isAlive()) {
-                t.interrupt();
+        } catch (IOException ex) {
+            log.debug("Error resetting timeout", ex);
+        }
+    }
+
+    private void startReader() {
+        inbound = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            GameEvent e = read();
+            while (e != null) {
+                inbound.add(e);
+                e = read();
             }
+            inbound.add(CLOSED);
+        }, "game-engine-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private GameEvent take() {
+        try {
+            return closedToNull(inbound.take());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOGameException("Interrupted receive", ex);
         }
-        return result;
+    }
+
+    private GameEvent poll(long timeout) {
+        try {
+            return closedToNull(timeout > 0 ? inbound.poll(timeout, TimeUnit.MILLISECONDS) : inbound.take());
+        } catch (InterruptedException ex) {
+            log.debug("Interrupted read " + timeout, ex);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private GameEvent closedToNull(GameEvent e) {
+        if (e == CLOSED) {
+            inbound.add(CLOSED);
+            return null;
+        }
+        return e;
     }
 
     @Override
@@ -146,6 +239,8 @@ public class IOConnectorBase implements IOConnector {
             } catch (IOException ex) {
                 log.error("Error: close", ex);
             }
+            Utilities.close(socket);
+            codec.end();
         }
     }
 }
@@ -16,59 +16,449 @@
 package com.github.dperezcabrera.ge.io;
 
 import com.github.dperezcabrera.ge.MethodInvoker;
+import com.github.dperezcabrera.ge.impl.SerialExecutor;
+import com.github.dperezcabrera.ge.util.Futures;
+import com.github.dperezcabrera.ge.util.Utilities;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
-import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 /**
+ * Sends and receives method calls through an {@link IOConnector}. When batching
+ * is enabled, async calls are queued and sent together in one frame once the
+ * batch is full, the delay expires or a synchronous call is made. The expired
+ * batches are sent from a pool of their own, so a slow peer never delays the
+ * timeouts of the calls.
+ * <p>
+ * Calls carry a request id in the command ({@code "C<id>"}) and are answered
+ * with {@code "R<id>"} or {@code "E<id>"}, so several calls may be in flight on
+ * the same connection. Responses are dispatched by a receiver thread started
+ * with the first call. Calls and responses without id are still understood.
+ * <p>
+ * The received pings and responses are handled by the reading thread. With a
+ * call executor the work for the player runs on it, in order, so a player busy
+ * in a call does not delay the pongs.
  *
  * @author David Pérez Cabrera <dperezcabrera@gmail.com>
  */
-@AllArgsConstructor
+@Slf4j
 public class IOMethodInvoker implements MethodInvoker, AutoCloseable {
 
     public static final String ASYNC_CALL_CMD = "A";
+    public static final String BATCH_CMD = "B";
     public static final String CALL_CMD = "C";
+    public static final String ERROR_CMD = "E";
     public static final String RESPONSE_CMD = "R";
+    public static final String MATCH_START_CMD = "start";
+    public static final String MATCH_END_CMD = "end";
+    public static final String PING_CMD = "ping";
+    public static final String PONG_CMD = "pong";
+
+    private static final ExecutorService FLUSHER = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "game-engine-flush");
+        t.setDaemon(true);
+        return t;
+    });
 
     private IOConnector connector;
     private Serializer<MethodCall, byte[]> serializer;
+    private final int maxBatchSize;
+    private final long maxBatchDelay;
+    private final List<byte[]> batch = new ArrayList<>();
+    private ScheduledFuture<?> batchTask;
+    private final AtomicLong nextId = new AtomicLong();
+    private final ConcurrentSkipListMap<Long, CompletableFuture<Object>> pending = new ConcurrentSkipListMap<>();
+    private volatile boolean receiving = false;
+    private volatile long lastActivity = System.currentTimeMillis();
+    private volatile SessionListener sessionListener;
+    private volatile Executor callExecutor;
+    private volatile boolean exiting = false;
+
+    public IOMethodInvoker(IOConnector connector, Serializer<MethodCall, byte[]> serializer) {
+        this(connector, serializer, 1, 0);
+    }
+
+    /**
+     * @param maxBatchSize maximum number of async calls sent in one frame, 1
+     * disables the batching
+     * @param maxBatchDelay maximum time in milliseconds an async call waits in
+     * the batch, required when the batching is enabled
+     */
+    public IOMethodInvoker(IOConnector connector, Serializer<MethodCall, byte[]> serializer, int maxBatchSize, long maxBatchDelay) {
+        Utilities.checkArgument(maxBatchSize > 1 && maxBatchDelay <= 0, "The batching requires a positive maxBatchDelay, found {0}", maxBatchDelay);
+        this.connector = connector;
+        this.serializer = serializer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelay = maxBatchDelay;
+    }
 
     @Override
     public synchronized void asyncCall(Method m, Object[] parameters) {
-        connector.send(new GameEvent(ASYNC_CALL_CMD, serializer.serialize(new MethodCall(m, parameters, null))));
+        if (isClosed()) {
+            log.debug("Call to method {} of a closed session dropped", m);
+            return;
+        }
+        byte[] call = serializer.serialize(MethodCall.call(m, parameters));
+        if (maxBatchSize <= 1) {
+            connector.send(new GameEvent(ASYNC_CALL_CMD, call));
+        } else {
+            addToBatch(call);
+        }
+    }
+
+    @Override
+    public synchronized void asyncCall(PreparedCall call) {
+        if (isClosed()) {
+            log.debug("Call to method {} of a closed session dropped", call.getMethod());
+            return;
+        }
+        Broadcast broadcast = call.encode(serializer);
+        if (maxBatchSize <= 1) {
+            connector.send(broadcast);
+        } else {
+            addToBatch(broadcast.getEvent().getPayload());
+        }
+    }
+
+    private void addToBatch(byte[] call) {
+        batch.add(call);
+        if (batch.size() >= maxBatchSize) {
+            flush();
+        } else if (batchTask == null && maxBatchDelay > 0) {
+            batchTask = Futures.schedule(this::flushLater, maxBatchDelay);
+        }
     }
 
     @Override
-    public synchronized Object call(Method m, Object[] parameters) {
-        connector.send(new GameEvent(CALL_CMD, serializer.serialize(new MethodCall(m, parameters, null))));
-        return serializer.deserialize(connector.receive().getPayload()).getResponse();
+    public Object call(Method m, Object[] parameters) {
+        return Futures.await(callAsync(m, parameters), "call to " + m);
+    }
+
+    @Override
+    public CompletionStage<Object> callAsync(Method m, Object[] parameters) {
+        byte[] call = serializer.serialize(MethodCall.call(m, parameters));
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        long id = nextId.incrementAndGet();
+        synchronized (this) {
+            if (isClosed()) {
+                result.completeExceptionally(new IOGameException("Connection closed in method " + m));
+                return result;
+            }
+            startReceiver();
+            pending.put(id, result);
+            result.whenComplete((r, e) -> pending.remove(id, result));
+            flush();
+            connector.send(new GameEvent(CALL_CMD + id, call));
+        }
+        return result;
+    }
+
+    /**
+     * Sends the start of a match of the session.
+     */
+    public synchronized void startMatch(String match) {
+        flush();
+        connector.send(new GameEvent(MATCH_START_CMD, match.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Sends the end of a match of the session.
+     */
+    public synchronized void endMatch(String match) {
+        flush();
+        connector.send(new GameEvent(MATCH_END_CMD, match.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Runs the received calls, the match events and the exit on the executor,
+     * one by one in the order received. Without executor they run on the
+     * reading thread.
+     */
+    public void setCallExecutor(Executor executor) {
+        this.callExecutor = executor == null ? null : new SerialExecutor(executor);
     }
 
-    public synchronized boolean readCommand(MethodInvoker invoker) {
+    /**
+     * @param listener notified of the match events received
+     */
+    public void setSessionListener(SessionListener listener) {
+        this.sessionListener = listener;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return connector.isClosed();
+    }
+
+    /**
+     * @return the time of the last event received from the peer, in
+     * milliseconds
+     */
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Asks the peer for a {@value #PONG_CMD}, any answer updates the last
+     * activity.
+     */
+    public void ping() {
+        if (!receiving) {
+            synchronized (this) {
+                startReceiver();
+            }
+        }
+        connector.send(new GameEvent(PING_CMD));
+    }
+
+    /**
+     * Closes a dead session at once: the batched calls are discarded and the
+     * pending calls fail without waiting out their timeouts.
+     */
+    public void disconnect() {
+        connector.close();
+        failPending();
+    }
+
+    public int getPendingCalls() {
+        return pending.size();
+    }
+
+    private void startReceiver() {
+        if (!receiving) {
+            receiving = true;
+            if (!connector.subscribe(e -> dispatch(e, null), this::failPending)) {
+                Thread receiver = new Thread(this::receiveResponses, "game-engine-receiver");
+                receiver.setDaemon(true);
+                receiver.start();
+            }
+        }
+    }
+
+    private void receiveResponses() {
         try {
-            GameEvent e = connector.receive();
-            if (ASYNC_CALL_CMD.equals(e.getCommand())) {
-                MethodCall mc = serializer.deserialize(e.getPayload());
-                invoker.asyncCall(mc.getMethod(), mc.getParameters());
-            } else if (CALL_CMD.equals(e.getCommand())) {
-                MethodCall mc = serializer.deserialize(e.getPayload());
-                Object response = invoker.call(mc.getMethod(), mc.getParameters());
-                connector.send(new GameEvent(RESPONSE_CMD, serializer.serialize(new MethodCall(mc.getMethod(), null, response))));
-            } else if (GameEvent.EXIT.getCommand().equals(e.getCommand())) { // exit command
-                connector.close();
-            } else {
-                throw new IOGameException("Unknown command '" + e.getCommand() + "'");
+            while (readCommand(null)) {
+                // dispatching responses
             }
+        } catch (RuntimeException e) {
+            log.debug("Receiver stopped", e);
+        } finally {
+            failPending();
+        }
+    }
+
+    private void failPending() {
+        Map.Entry<Long, CompletableFuture<Object>> entry;
+        while ((entry = pending.pollFirstEntry()) != null) {
+            entry.getValue().completeExceptionally(new IOGameException("Connection closed with pending call " + entry.getKey()));
+        }
+    }
+
+    private void flushLater() {
+        try {
+            FLUSHER.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            log.warn("Batch not flushed", e);
+        }
+    }
+
+    public synchronized void flush() {
+        if (batchTask != null) {
+            batchTask.cancel(false);
+            batchTask = null;
+        }
+        if (batch.size() == 1) {
+            connector.send(new GameEvent(ASYNC_CALL_CMD, batch.get(0)));
+        } else if (!batch.isEmpty()) {
+            int size = 0;
+            for (byte[] call : batch) {
+                size += Integer.BYTES + call.length;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(size);
+            for (byte[] call : batch) {
+                payload.putInt(call.length).put(call);
+            }
+            connector.send(new GameEvent(BATCH_CMD, payload.array()));
+        }
+        batch.clear();
+    }
+
+    public boolean readCommand(MethodInvoker invoker) {
+        try {
+            dispatch(connector.receive(), invoker);
         } catch (IOGameException e) {
             close();
             throw new IOGameException("Error in readCommand", e);
         }
-        return !connector.isClosed();
+        return !exiting && !connector.isClosed();
+    }
+
+    /**
+     * Answers the received commands with the target as they are pushed by the
+     * connector, instead of reading them with {@link #readCommand}.
+     *
+     * @param target the invoker of the received calls
+     * @param onClose called once when the connection is closed
+     * @return false when the connector can not push events
+     */
+    public synchronized boolean serve(MethodInvoker target, Runnable onClose) {
+        if (receiving) {
+            throw new IllegalStateException("The invoker is already receiving");
+        }
+        receiving = connector.subscribe(e -> {
+            try {
+                dispatch(e, target);
+            } catch (IOGameException ex) {
+                log.warn("Error dispatching '" + e.getCommand() + "'", ex);
+                close();
+            }
+        }, () -> {
+            failPending();
+            onClose.run();
+        });
+        return receiving;
+    }
+
+    private void dispatch(GameEvent e, MethodInvoker invoker) {
+        lastActivity = System.currentTimeMillis();
+        String command = e.getCommand();
+        if (PING_CMD.equals(command)) {
+            connector.send(new GameEvent(PONG_CMD, e.getPayload()));
+        } else if (PONG_CMD.equals(command)) {
+            // the activity is already updated
+        } else if (command.startsWith(RESPONSE_CMD)) {
+            CompletableFuture<Object> future = pendingCall(command);
+            if (future != null) {
+                future.complete(serializer.deserialize(e.getPayload()).getResponse());
+            }
+        } else if (command.startsWith(ERROR_CMD)) {
+            CompletableFuture<Object> future = pendingCall(command);
+            if (future != null) {
+                future.completeExceptionally(new IOGameException(new String(e.getPayload(), StandardCharsets.UTF_8)));
+            }
+        } else {
+            exiting |= GameEvent.EXIT.getCommand().equals(command);
+            Executor executor = callExecutor;
+            if (executor == null) {
+                play(e, invoker);
+            } else {
+                executor.execute(() -> {
+                    try {
+                        play(e, invoker);
+                    } catch (IOGameException ex) {
+                        log.warn("Error dispatching '" + command + "'", ex);
+                        close();
+                    }
+                });
+            }
+        }
+    }
+
+    private void play(GameEvent e, MethodInvoker invoker) {
+        String command = e.getCommand();
+        if (ASYNC_CALL_CMD.equals(command)) {
+            MethodCall mc = serializer.deserialize(e.getPayload());
+            target(invoker, command).asyncCall(mc.getMethod(), mc.getParameters());
+        } else if (BATCH_CMD.equals(command)) {
+            ByteBuffer payload = ByteBuffer.wrap(e.getPayload());
+            while (payload.hasRemaining()) {
+                byte[] call = new byte[payload.getInt()];
+                payload.get(call);
+                MethodCall mc = serializer.deserialize(call);
+                target(invoker, command).asyncCall(mc.getMethod(), mc.getParameters());
+            }
+        } else if (CALL_CMD.equals(command)) {
+            MethodCall mc = serializer.deserialize(e.getPayload());
+            Object response = target(invoker, command).call(mc.getMethod(), mc.getParameters());
+            connector.send(new GameEvent(RESPONSE_CMD, serializer.serialize(MethodCall.response(mc.getMethod(), response))));
+        } else if (command.startsWith(CALL_CMD)) {
+            answer(target(invoker, command), requestId(command), serializer.deserialize(e.getPayload()));
+        } else if (MATCH_START_CMD.equals(command) || MATCH_END_CMD.equals(command)) {
+            notifySession(command, new String(e.getPayload(), StandardCharsets.UTF_8));
+        } else if (GameEvent.EXIT.getCommand().equals(command)) { // exit command
+            connector.close();
+        } else {
+            throw new IOGameException("Unknown command '" + command + "'");
+        }
+    }
+
+    private void notifySession(String command, String match) {
+        SessionListener listener = sessionListener;
+        if (listener != null) {
+            try {
+                if (MATCH_START_CMD.equals(command)) {
+                    listener.onMatchStart(match);
+                } else {
+                    listener.onMatchEnd(match);
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Error in session listener", ex);
+            }
+        }
+    }
+
+    private void answer(MethodInvoker invoker, long id, MethodCall mc) {
+        invoker.callAsync(mc.getMethod(), mc.getParameters()).whenComplete((response, error) -> {
+            if (error == null) {
+                connector.send(new GameEvent(RESPONSE_CMD + id, serializer.serialize(MethodCall.response(mc.getMethod(), response))));
+            } else {
+                log.warn("Error in call " + id + " to method " + mc.getMethod(), error);
+                String message = "Error in method " + mc.getMethod() + ": " + error.getMessage();
+                connector.send(new GameEvent(ERROR_CMD + id, message.getBytes(StandardCharsets.UTF_8)));
+            }
+        });
+    }
+
+    private CompletableFuture<Object> pendingCall(String command) {
+        if (command.length() == 1) { // peers without request ids answer in order
+            Map.Entry<Long, CompletableFuture<Object>> entry = pending.pollFirstEntry();
+            return entry != null ? entry.getValue() : null;
+        }
+        CompletableFuture<Object> result = pending.remove(requestId(command));
+        if (result == null) {
+            log.debug("Response without pending call '{}'", command);
+        }
+        return result;
+    }
+
+    private static long requestId(String command) {
+        try {
+            return Long.parseLong(command.substring(1));
+        } catch (NumberFormatException e) {
+            throw new IOGameException("Unknown command '" + command + "'", e);
+        }
+    }
+
+    private static MethodInvoker target(MethodInvoker invoker, String command) {
+        if (invoker == null) {
+            throw new IOGameException("Unexpected command '" + command + "'");
+        }
+        return invoker;
+    }
+
+    public synchronized void exit() {
+        flush();
+        connector.send(GameEvent.EXIT);
+        connector.close();
     }
 
     @Override
     public synchronized void close() {
+        flush();
         connector.close();
     }
 }
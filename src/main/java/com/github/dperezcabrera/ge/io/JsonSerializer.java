@@ -15,19 +15,30 @@
  */
 package com.github.dperezcabrera.ge.io;
 
-import com.github.dperezcabrera.ge.GameException;
-import com.github.dperezcabrera.ge.util.Utilities;
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor;
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor.MethodDescriptor;
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import lombok.NonNull;
 
 /**
+ * Encodes calls as a text {@link GameEvent}: the command is the method name and
+ * the payload a JSON array with the parameters or the response. Values are
+ * streamed with the {@link TypeAdapter}s of the declared types, resolved once
+ * per method. The frame is written as text and encoded to UTF-8 once, and it
+ * is decoded once before reading it.
  *
  * @author David Pérez Cabrera <dperezcabrera@gmail.com>
  */
@@ -35,70 +46,120 @@ public class JsonSerializer implements Serializer<MethodCall, byte[]> {
 
     private static final String PREFIX_CALL = " ";
     private static final String PREFIX_RESPONSE = "$";
+    private static final Gson GSON = new Gson();
 
-    private static final String NULL_VALUE = "null";
-    private static final char CLOSE_ARRAY = ']';
-    private static final char OPEN_ARRAY = '[';
-    private Map<String, Method> commandIndex = new HashMap<>();
-    private Map<Method, String> methodIndex = new HashMap<>();
+    private final PlayerInterfaceDescriptor<?> descriptor;
+    private final Adapter[][] parameterAdapters;
+    private final Adapter[] responseAdapters;
 
     public JsonSerializer(@NonNull Class<?> type) {
-        for (Method m : type.getMethods()) {
-            String methodName = Utilities.getCommandName(m);
-            if (commandIndex.containsKey(methodName)) {
-                throw new GameException("Command name '" + methodName + "' was already used in " + m.toGenericString() + "\n and " + commandIndex.get(methodName).toGenericString());
+        descriptor = PlayerInterfaceDescriptor.of(type);
+        descriptor.checkCommandNames();
+        List<MethodDescriptor> methods = descriptor.getMethods();
+        parameterAdapters = new Adapter[methods.size()][];
+        responseAdapters = new Adapter[methods.size()];
+        for (MethodDescriptor md : methods) {
+            Adapter[] adapters = new Adapter[md.getParameterCount()];
+            for (int i = 0; i < adapters.length; i++) {
+                adapters[i] = new Adapter(md.getParameterType(i));
             }
-            commandIndex.put(methodName, m);
-            methodIndex.put(m, methodName);
+            parameterAdapters[md.getId()] = adapters;
+            responseAdapters[md.getId()] = new Adapter(md.getReturnType() == void.class ? Object.class : md.getReturnType());
         }
-        commandIndex = Collections.unmodifiableMap(commandIndex);
-        methodIndex = Collections.unmodifiableMap(methodIndex);
     }
 
     @Override
     public byte[] serialize(@NonNull MethodCall obj) {
-        Gson gson = new Gson();
-        StringBuilder sb = new StringBuilder();
-        sb.append(OPEN_ARRAY);
-        String prefix;
-        if (obj.getParameters() != null) {
-            prefix = PREFIX_CALL;
-            sb.append(String.join(", ", Arrays.stream(obj.getParameters()).map(o -> o == null ? NULL_VALUE : gson.toJson(o)).toArray(String[]::new)));
-        } else {
-            prefix = PREFIX_RESPONSE;
-            sb.append(gson.toJson(obj.getResponse()));
+        MethodDescriptor md = descriptor.getMethod(obj.getMethod());
+        boolean response = obj.isResponse();
+        StringWriter writer = new StringWriter(128);
+        try {
+            writer.append(response ? PREFIX_RESPONSE : PREFIX_CALL).append(md.getCommandName()).append(GameEvent.SEPARATOR);
+            JsonWriter jsonWriter = GSON.newJsonWriter(writer);
+            jsonWriter.beginArray();
+            if (response) {
+                responseAdapters[md.getId()].write(jsonWriter, obj.getResponse());
+            } else {
+                Adapter[] adapters = parameterAdapters[md.getId()];
+                for (int i = 0; i < adapters.length; i++) {
+                    adapters[i].write(jsonWriter, obj.getParameters()[i]);
+                }
+            }
+            jsonWriter.endArray();
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new IOGameException("Error serializing " + obj.getMethod(), e);
         }
-        sb.append(CLOSE_ARRAY);
-        sb.append("\n");
-        return new GameEvent(prefix + methodIndex.get(obj.getMethod()), sb.toString()).toFrame();
+        return writer.toString().getBytes(StandardCharsets.UTF_8);
     }
 
     @Override
     public MethodCall deserialize(@NonNull byte[] data) {
-        Gson gson = new Gson();
-        GameEvent ge = GameEvent.fromFrame(data);
-        JsonElement[] elements = gson.fromJson(new String(ge.getPayload()), JsonElement[].class);
-        boolean response = ge.getCommand().startsWith(PREFIX_RESPONSE);
-        Method method;
-        Object[] parameters = null;
-        Object resultMethod = null;
-        if (response) {
-            method = commandIndex.get(ge.getCommand().substring(PREFIX_RESPONSE.length()));
-            if (!NULL_VALUE.equals(elements[0].toString())) {
-                resultMethod = gson.fromJson(elements[0].toString(), method.getGenericReturnType());
+        int separator = 0;
+        while (separator < data.length && data[separator] != GameEvent.SEPARATOR) {
+            separator++;
+        }
+        if (separator == data.length) {
+            throw new IOGameException("Frame without command");
+        }
+        String command = new String(data, 0, separator, StandardCharsets.UTF_8);
+        boolean response = command.startsWith(PREFIX_RESPONSE);
+        MethodDescriptor md = descriptor.getCommand(command.substring(response ? PREFIX_RESPONSE.length() : PREFIX_CALL.length()));
+        if (md == null) {
+            throw new IOGameException("Unknown command '" + command + "'");
+        }
+        try {
+            JsonReader reader = GSON.newJsonReader(new StringReader(new String(data, separator + 1, data.length - separator - 1, StandardCharsets.UTF_8)));
+            reader.setLenient(true);
+            reader.beginArray();
+            if (response) {
+                return MethodCall.response(md.getMethod(), responseAdapters[md.getId()].read(reader));
             }
-        } else {
-            method = commandIndex.get(ge.getCommand().substring(PREFIX_CALL.length()));
-            if (elements.length > 0) {
-                parameters = new Object[elements.length];
-                for (int i = 0; i < parameters.length; i++) {
-                    JsonElement element = elements[i];
-                    if (!NULL_VALUE.equals(element.toString())) {
-                        parameters[i] = gson.fromJson(element.toString(), method.getGenericParameterTypes()[i]);
-                    }
-                }
+            Adapter[] adapters = parameterAdapters[md.getId()];
+            List<Object> values = new ArrayList<>(adapters.length);
+            while (reader.hasNext()) {
+                values.add(values.size() < adapters.length ? adapters[values.size()].read(reader) : skip(reader));
+            }
+            return MethodCall.call(md.getMethod(), values.isEmpty() ? null : values.toArray());
+        } catch (IOException | RuntimeException e) {
+            throw new IOGameException("Error deserializing '" + command + "'", e);
+        }
+    }
+
+    private static Object skip(JsonReader reader) throws IOException {
+        reader.skipValue();
+        return null;
+    }
+
+    private static final class Adapter {
+
+        private final Class<?> rawType;
+        private final TypeAdapter<Object> adapter;
+
+        @SuppressWarnings("unchecked")
+        Adapter(Type type) {
+            TypeToken<?> token = TypeToken.get(type);
+            this.rawType = token.getRawType();
+            this.adapter = (TypeAdapter<Object>) GSON.getAdapter(token);
+        }
+
+        @SuppressWarnings("unchecked")
+        void write(JsonWriter writer, Object value) throws IOException {
+            if (value == null) {
+                writer.nullValue();
+            } else if (value.getClass() == rawType || rawType.isPrimitive()) {
+                adapter.write(writer, value);
+            } else {
+                ((TypeAdapter<Object>) GSON.getAdapter(value.getClass())).write(writer, value);
+            }
+        }
+
+        Object read(JsonReader reader) throws IOException {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
             }
+            return adapter.read(reader);
         }
-        return new MethodCall(method, parameters, resultMethod);
     }
 }
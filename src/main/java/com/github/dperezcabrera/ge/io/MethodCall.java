@@ -23,6 +23,9 @@ import lombok.NoArgsConstructor;
 import lombok.NonNull;
 
 /**
+ * A call to a method of a player, with its parameters, or the response of one,
+ * without parameters. Calls of methods without parameters carry
+ * {@link #NO_ARGS}.
  *
  * @author David Pérez Cabrera <dperezcabrera@gmail.com>
  */
@@ -31,8 +34,22 @@ import lombok.NonNull;
 @NoArgsConstructor
 public class MethodCall {
 
+    public static final Object[] NO_ARGS = {};
+
     @NonNull
     private Method method;
     private Object[] parameters;
     private Object response;
+
+    public static MethodCall call(@NonNull Method method, Object[] parameters) {
+        return new MethodCall(method, parameters == null ? NO_ARGS : parameters, null);
+    }
+
+    public static MethodCall response(@NonNull Method method, Object response) {
+        return new MethodCall(method, null, response);
+    }
+
+    public boolean isResponse() {
+        return parameters == null;
+    }
 }
@@ -0,0 +1,438 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import com.github.dperezcabrera.ge.impl.SerialExecutor;
+import com.github.dperezcabrera.ge.util.Utilities;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Several logical connections, the channels, over one {@link IOConnector}.
+ * The events of a channel travel inside envelopes: the command is
+ * {@value #DATA_CMD} followed by the channel id and the payload is the frame
+ * of the event. A {@value #CLOSE_CMD} envelope closes a channel.
+ *
+ * The client starts the connection with a {@value #HELLO_CMD} event and opens
+ * its channels, the server learns them from the first envelope of each one.
+ * The received events are dispatched in order per channel over a shared
+ * executor. An accepted connection may be limited in the number of channels
+ * open at the same time; a client opening more is closed.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@Slf4j
+public class MultiplexConnector implements AutoCloseable {
+
+    public static final String HELLO_CMD = "Mux";
+    public static final String DATA_CMD = "M";
+    public static final String CLOSE_CMD = "Q";
+
+    private static final GameEvent CLOSED = new GameEvent("closed");
+
+    private final IOConnector connector;
+    private final Executor executor;
+    private final Consumer<IOConnector> acceptor;
+    private final int maxChannels;
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private volatile boolean closeWhenIdle = false;
+    private volatile boolean closed = false;
+
+    private MultiplexConnector(IOConnector connector, Executor executor, Consumer<IOConnector> acceptor, int maxChannels) {
+        this.connector = connector;
+        this.executor = executor;
+        this.acceptor = acceptor;
+        this.maxChannels = maxChannels;
+        if (!connector.subscribe(this::route, this::closeChannels)) {
+            Thread receiver = new Thread(this::receive, "game-engine-mux");
+            receiver.setDaemon(true);
+            receiver.start();
+        }
+    }
+
+    /**
+     * Starts a multiplexed connection from the client side.
+     *
+     * @param connector the physical connection
+     * @param executor the executor of the received events
+     * @return the multiplexed connection, without channels
+     */
+    public static MultiplexConnector connect(@NonNull IOConnector connector, @NonNull Executor executor) {
+        connector.send(new GameEvent(HELLO_CMD));
+        return new MultiplexConnector(connector, executor, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the first event of an accepted connection. When it is the
+     * {@value #HELLO_CMD} event the connection is multiplexed and every new
+     * channel is given to the acceptor, otherwise the connection is returned to
+     * be used as usual, the first event included.
+     *
+     * @param connector the accepted connection
+     * @param timeout the time to wait for the first event, in milliseconds
+     * @param acceptor receives the channels of a multiplexed connection
+     * @return the connection or null when it is multiplexed
+     */
+    public static IOConnector accept(@NonNull IOConnector connector, long timeout, @NonNull Consumer<IOConnector> acceptor) {
+        return accept(connector, timeout, Integer.MAX_VALUE, acceptor);
+    }
+
+    /**
+     * Like {@link #accept(IOConnector, long, Consumer)}, closing the
+     * connection when the client opens more than {@code maxChannels} channels
+     * at the same time.
+     *
+     * @param connector the accepted connection
+     * @param timeout the time to wait for the first event, in milliseconds
+     * @param maxChannels maximum number of channels open at the same time
+     * @param acceptor receives the channels of a multiplexed connection
+     * @return the connection or null when it is multiplexed
+     */
+    public static IOConnector accept(@NonNull IOConnector connector, long timeout, int maxChannels, @NonNull Consumer<IOConnector> acceptor) {
+        Utilities.checkMinValueArgument(maxChannels, 1, "maxChannels");
+        GameEvent first;
+        try {
+            first = connector.receive(timeout);
+        } catch (RuntimeException e) {
+            log.debug("Error reading the first event", e);
+            first = null;
+        }
+        if (first != null && HELLO_CMD.equals(first.getCommand())) {
+            new MultiplexConnector(connector, Runnable::run, acceptor, maxChannels);
+            return null;
+        }
+        return new Peeked(connector, first);
+    }
+
+    public IOConnector open(long id) {
+        if (closed) {
+            throw new IOGameException("Connection closed");
+        }
+        Channel result = new Channel(id);
+        if (channels.putIfAbsent(id, result) != null) {
+            throw new IllegalArgumentException("Channel " + id + " already opened");
+        }
+        return result;
+    }
+
+    public int getChannels() {
+        return channels.size();
+    }
+
+    /**
+     * Closes the connection once it has no open channels.
+     */
+    public void closeWhenIdle() {
+        closeWhenIdle = true;
+        closeIfIdle();
+    }
+
+    private void closeIfIdle() {
+        if (closeWhenIdle && channels.isEmpty() && !closed) {
+            close();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closeChannels();
+    }
+
+    private void receive() {
+        try {
+            while (!closed) {
+                route(connector.receive());
+            }
+        } catch (RuntimeException e) {
+            log.debug("Multiplexed receiver stopped", e);
+        } finally {
+            closeChannels();
+        }
+    }
+
+    private void route(GameEvent e) {
+        String command = e.getCommand();
+        if (command.startsWith(DATA_CMD) && !HELLO_CMD.equals(command)) {
+            long id = channelId(command);
+            Channel channel = channels.get(id);
+            if (channel == null && acceptor != null && !closed) {
+                if (channels.size() >= maxChannels) {
+                    log.warn("More than {} channels opened on {}, closing it", maxChannels, connector);
+                    close();
+                    return;
+                }
+                channel = new Channel(id);
+                channels.put(id, channel);
+                acceptor.accept(channel);
+            }
+            if (channel != null) {
+                channel.deliver(GameEvent.fromFrame(e.getPayload()));
+            } else {
+                log.debug("Event for the closed channel {}", id);
+            }
+        } else if (command.startsWith(CLOSE_CMD)) {
+            Channel channel = channels.get(channelId(command));
+            if (channel != null) {
+                channel.closeLocal();
+                closeIfIdle();
+            }
+        } else if (GameEvent.EXIT.getCommand().equals(command)) {
+            close();
+        } else {
+            log.warn("Unknown multiplexed command '{}'", command);
+        }
+    }
+
+    private void closeChannels() {
+        closed = true;
+        channels.values().forEach(Channel::closeLocal);
+        connector.close();
+    }
+
+    private static long channelId(String command) {
+        try {
+            return Long.parseLong(command.substring(1));
+        } catch (NumberFormatException e) {
+            throw new IOGameException("Unknown command '" + command + "'", e);
+        }
+    }
+
+    private class Channel implements IOConnector {
+
+        private final long id;
+        private final String dataCommand;
+        private final SerialExecutor serial = new SerialExecutor(executor);
+        private final BlockingQueue<GameEvent> inbound = new LinkedBlockingQueue<>();
+        private Consumer<GameEvent> events;
+        private Runnable onClose;
+        private volatile boolean closedChannel = false;
+
+        Channel(long id) {
+            this.id = id;
+            this.dataCommand = DATA_CMD + id;
+        }
+
+        @Override
+        public void send(GameEvent ge) {
+            if (!closedChannel) {
+                connector.send(new GameEvent(dataCommand, ge.toFrame()));
+            }
+        }
+
+        @Override
+        public GameEvent receive() {
+            try {
+                return check(inbound.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOGameException("Interrupted receiving", e);
+            }
+        }
+
+        @Override
+        public GameEvent receive(long timeout) {
+            try {
+                GameEvent result = timeout > 0 ? inbound.poll(timeout, TimeUnit.MILLISECONDS) : inbound.take();
+                if (result == CLOSED) {
+                    inbound.add(CLOSED);
+                    result = null;
+                }
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        private GameEvent check(GameEvent e) {
+            if (e == CLOSED) {
+                inbound.add(CLOSED);
+                throw new IOGameException("Channel " + id + " closed");
+            }
+            return e;
+        }
+
+        @Override
+        public synchronized boolean subscribe(Consumer<GameEvent> events, Runnable onClose) {
+            this.events = events;
+            this.onClose = onClose;
+            GameEvent e;
+            while ((e = inbound.poll()) != null) {
+                dispatch(e == CLOSED ? onClose : task(e));
+            }
+            return true;
+        }
+
+        void deliver(GameEvent e) {
+            synchronized (this) {
+                if (events == null) {
+                    inbound.add(e);
+                    return;
+                }
+            }
+            dispatch(task(e));
+        }
+
+        private Runnable task(GameEvent e) {
+            Consumer<GameEvent> consumer = events;
+            return () -> consumer.accept(e);
+        }
+
+        private void dispatch(Runnable task) {
+            try {
+                serial.execute(task);
+            } catch (RejectedExecutionException ex) {
+                log.warn("Event of channel {} rejected", id, ex);
+            }
+        }
+
+        boolean closeLocal() {
+            synchronized (this) {
+                if (closedChannel) {
+                    return false;
+                }
+                closedChannel = true;
+                if (events == null) {
+                    inbound.add(CLOSED);
+                } else {
+                    dispatch(onClose);
+                }
+            }
+            channels.remove(id, this);
+            return true;
+        }
+
+        @Override
+        public void close() {
+            if (closeLocal() && !closed) {
+                try {
+                    connector.send(new GameEvent(CLOSE_CMD + id));
+                } catch (RuntimeException e) {
+                    log.debug("Error closing channel {}", id, e);
+                }
+                closeIfIdle();
+            }
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closedChannel;
+        }
+
+        @Override
+        public String toString() {
+            return "Channel " + id + " of " + connector;
+        }
+    }
+
+    /**
+     * A connection whose first event was already read.
+     */
+    private static class Peeked implements IOConnector {
+
+        private final IOConnector connector;
+        private GameEvent first;
+        private boolean peeked = true;
+
+        Peeked(IOConnector connector, GameEvent first) {
+            this.connector = connector;
+            this.first = first;
+        }
+
+        private synchronized boolean pending() {
+            boolean result = peeked;
+            peeked = false;
+            return result;
+        }
+
+        private synchronized GameEvent takeFirst() {
+            GameEvent result = first;
+            first = null;
+            return result;
+        }
+
+        @Override
+        public GameEvent receive() {
+            if (pending()) {
+                GameEvent result = takeFirst();
+                return result != null ? result : connector.receive();
+            }
+            return connector.receive();
+        }
+
+        @Override
+        public GameEvent receive(long timeout) {
+            return pending() ? takeFirst() : connector.receive(timeout);
+        }
+
+        @Override
+        public void send(GameEvent ge) {
+            connector.send(ge);
+        }
+
+        @Override
+        public void send(Broadcast broadcast) {
+            connector.send(broadcast);
+        }
+
+        @Override
+        public void setFrameVersion(int version) {
+            connector.setFrameVersion(version);
+        }
+
+        @Override
+        public void setCompressionThreshold(int threshold) {
+            connector.setCompressionThreshold(threshold);
+        }
+
+        @Override
+        public boolean subscribe(Consumer<GameEvent> events, Runnable onClose) {
+            GameEvent e = pending() ? takeFirst() : null;
+            if (e != null) {
+                events.accept(e);
+            }
+            return connector.subscribe(events, onClose);
+        }
+
+        @Override
+        public void close() {
+            connector.close();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return connector.isClosed();
+        }
+
+        @Override
+        public String toString() {
+            return connector.toString();
+        }
+    }
+}
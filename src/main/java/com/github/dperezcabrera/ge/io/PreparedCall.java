@@ -0,0 +1,48 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import java.lang.reflect.Method;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A one-way call with the same arguments for many players. It is serialized
+ * once for each serializer and its frames are shared through a
+ * {@link Broadcast}, so notifying N remote players costs one serialization.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class PreparedCall {
+
+    @Getter
+    private final Method method;
+    @Getter
+    private final Object[] parameters;
+    private final Map<Serializer<MethodCall, byte[]>, Broadcast> encoded = new IdentityHashMap<>(2);
+
+    public PreparedCall(@NonNull Method method, Object[] parameters) {
+        this.method = method;
+        this.parameters = parameters;
+    }
+
+    public synchronized Broadcast encode(@NonNull Serializer<MethodCall, byte[]> serializer) {
+        return encoded.computeIfAbsent(serializer, s -> new Broadcast(new GameEvent(IOMethodInvoker.ASYNC_CALL_CMD, s.serialize(MethodCall.call(method, parameters)))));
+    }
+}
@@ -0,0 +1,31 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+/**
+ * Implemented by client players that want to know when the matches of their
+ * session start and end, e.g. to reset their state.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public interface SessionListener {
+
+    public default void onMatchStart(String match) {
+    }
+
+    public default void onMatchEnd(String match) {
+    }
+}
@@ -0,0 +1,94 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary layout of the match journal files. A file starts with
+ * {@link #MAGIC}, the format version, the player interface name and the start
+ * time in epoch milliseconds. Records follow, each one made of its type, the
+ * nanoseconds elapsed since the start of the match and its fields. Unused
+ * space at the end of a file is zero, which is read as the end of the records.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public enum JournalFormat {
+    ;// without instances
+
+    public static final int MAGIC = 0x47454A4C; // "GEJL"
+    public static final byte VERSION = 1;
+
+    public static final byte END_OF_RECORDS = 0;
+    /** player count, player names */
+    public static final byte START = 1;
+    /** state name */
+    public static final byte STATE = 2;
+    /** player index, call id, sync flag, serialized call */
+    public static final byte CALL = 3;
+    /** player index, call id, serialized response */
+    public static final byte RESPONSE = 4;
+    /** player index, call id, error message */
+    public static final byte ERROR = 5;
+    /** player count, (player name, score) pairs */
+    public static final byte END = 6;
+    /** error message */
+    public static final byte ABORT = 7;
+
+    public static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static long getVarint(ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new JournalException("Malformed varint");
+    }
+
+    public static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        putVarint(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    public static byte[] getBytes(ByteBuffer buffer) {
+        long length = getVarint(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new JournalException("Invalid length " + length);
+        }
+        byte[] result = new byte[(int) length];
+        buffer.get(result);
+        return result;
+    }
+
+    public static void putString(ByteBuffer buffer, String value) {
+        putBytes(buffer, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String getString(ByteBuffer buffer) {
+        return new String(getBytes(buffer), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.journal;
+
+import com.github.dperezcabrera.ge.MethodInvoker;
+import com.github.dperezcabrera.ge.io.PreparedCall;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletionStage;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records in a {@link MatchRecorder} every call made through the decorated
+ * invoker together with its response or error. Recording errors are logged and
+ * never reach the game.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@Slf4j
+public class JournalingMethodInvoker implements MethodInvoker {
+
+    private final MethodInvoker target;
+    private final MatchRecorder recorder;
+    private final int player;
+
+    public JournalingMethodInvoker(@NonNull MethodInvoker target, @NonNull MatchRecorder recorder, @NonNull String player) {
+        this.target = target;
+        this.recorder = recorder;
+        this.player = recorder.getPlayerIndex(player);
+    }
+
+    @Override
+    public void asyncCall(Method m, Object[] parameters) {
+        recordCall(m, parameters, false);
+        target.asyncCall(m, parameters);
+    }
+
+    @Override
+    public void asyncCall(PreparedCall call) {
+        recordCall(call.getMethod(), call.getParameters(), false);
+        target.asyncCall(call);
+    }
+
+    @Override
+    public Object call(Method m, Object[] parameters) {
+        long id = recordCall(m, parameters, true);
+        try {
+            Object result = target.call(m, parameters);
+            recordResponse(id, m, result, null);
+            return result;
+        } catch (RuntimeException e) {
+            recordResponse(id, m, null, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletionStage<Object> callAsync(Method m, Object[] parameters) {
+        long id = recordCall(m, parameters, true);
+        return target.callAsync(m, parameters).whenComplete((result, error) -> recordResponse(id, m, result, error));
+    }
+
+    @Override
+    public boolean isClosed() {
+        return target.isClosed();
+    }
+
+    private long recordCall(Method m, Object[] parameters, boolean sync) {
+        try {
+            return recorder.call(player, m, parameters, sync);
+        } catch (RuntimeException e) {
+            log.warn("Call to " + m + " not recorded", e);
+            return 0;
+        }
+    }
+
+    private void recordResponse(long id, Method m, Object result, Throwable error) {
+        try {
+            if (error == null) {
+                recorder.response(player, id, m, result);
+            } else {
+                recorder.error(player, id, error);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Response of " + m + " not recorded", e);
+        }
+    }
+}
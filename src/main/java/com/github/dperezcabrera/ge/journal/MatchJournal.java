@@ -0,0 +1,70 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.journal;
+
+import com.github.dperezcabrera.ge.util.Utilities;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Directory of match journals. Every match is recorded in its own
+ * memory-mapped, append-only file by a {@link MatchRecorder}.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class MatchJournal {
+
+    public static final String FILE_SUFFIX = ".journal";
+    public static final int DEFAULT_REGION_SIZE = 1024 * 1024;
+
+    @Getter
+    private final Path directory;
+    @Getter
+    private final Class<?> playerType;
+    private final int regionSize;
+    private final String prefix = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong matches = new AtomicLong();
+
+    public MatchJournal(@NonNull Path directory, @NonNull Class<?> playerType) {
+        this(directory, playerType, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * @param regionSize bytes mapped each time a file grows
+     */
+    public MatchJournal(@NonNull Path directory, @NonNull Class<?> playerType, int regionSize) {
+        Utilities.checkMinValueArgument(regionSize, 64, "regionSize");
+        this.directory = directory;
+        this.playerType = playerType;
+        this.regionSize = regionSize;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new JournalException("Error creating journal directory " + directory, e);
+        }
+    }
+
+    public MatchRecorder startMatch(@NonNull Collection<String> players) {
+        Path file = directory.resolve("match-" + prefix + "-" + matches.incrementAndGet() + FILE_SUFFIX);
+        return new MatchRecorder(file, playerType, players, regionSize);
+    }
+}
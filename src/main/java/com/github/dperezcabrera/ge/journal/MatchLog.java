@@ -0,0 +1,179 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.journal;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import static com.github.dperezcabrera.ge.journal.JournalFormat.*;
+
+/**
+ * Contents of a match journal file written by a {@link MatchRecorder}.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@Getter
+public class MatchLog {
+
+    private final String playerType;
+    private final long startTime;
+    private final List<String> players = new ArrayList<>();
+    private final List<String> states = new ArrayList<>();
+    private final List<RecordedCall> calls = new ArrayList<>();
+    /**
+     * Recorded scores, {@code null} if the match did not end
+     */
+    private Map<String, Double> scores;
+    /**
+     * Error that aborted the match, {@code null} if it was not aborted
+     */
+    private String abortMessage;
+
+    private MatchLog(String playerType, long startTime) {
+        this.playerType = playerType;
+        this.startTime = startTime;
+    }
+
+    public static MatchLog read(@NonNull Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new JournalException("Error reading journal " + file, e);
+        }
+    }
+
+    public static MatchLog read(@NonNull ByteBuffer in) {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new JournalException("Not a match journal");
+            }
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new JournalException("Unsupported journal version " + version);
+            }
+            MatchLog result = new MatchLog(getString(in), in.getLong());
+            result.readRecords(in);
+            return result;
+        } catch (BufferUnderflowException e) {
+            throw new JournalException("Truncated journal", e);
+        }
+    }
+
+    private void readRecords(ByteBuffer in) {
+        Map<Long, RecordedCall> callsById = new HashMap<>();
+        while (in.hasRemaining()) {
+            byte type = in.get();
+            if (type == END_OF_RECORDS) {
+                return;
+            }
+            long time = getVarint(in);
+            switch (type) {
+                case START:
+                    for (long i = getVarint(in); i > 0; i--) {
+                        players.add(getString(in));
+                    }
+                    break;
+                case STATE:
+                    states.add(getString(in));
+                    break;
+                case CALL:
+                    RecordedCall call = new RecordedCall(player(getVarint(in)), getVarint(in), in.get() != 0, time);
+                    call.call = getBytes(in);
+                    calls.add(call);
+                    callsById.put(call.id, call);
+                    break;
+                case RESPONSE:
+                    call(callsById, getVarint(in), getVarint(in)).response = getBytes(in);
+                    break;
+                case ERROR:
+                    call(callsById, getVarint(in), getVarint(in)).error = getString(in);
+                    break;
+                case END:
+                    scores = new LinkedHashMap<>();
+                    for (long i = getVarint(in); i > 0; i--) {
+                        scores.put(getString(in), in.getDouble());
+                    }
+                    scores = Collections.unmodifiableMap(scores);
+                    break;
+                case ABORT:
+                    abortMessage = getString(in);
+                    break;
+                default:
+                    throw new JournalException("Unknown record type " + type);
+            }
+        }
+    }
+
+    private String player(long index) {
+        if (index < 0 || index >= players.size()) {
+            throw new JournalException("Unknown player index " + index);
+        }
+        return players.get((int) index);
+    }
+
+    private RecordedCall call(Map<Long, RecordedCall> callsById, long player, long id) {
+        RecordedCall result = callsById.get(id);
+        if (result == null || !result.player.equals(player(player))) {
+            throw new JournalException("Response to unknown call " + id);
+        }
+        return result;
+    }
+
+    @Getter
+    public static class RecordedCall {
+
+        private final String player;
+        private final long id;
+        private final boolean sync;
+        /**
+         * Nanoseconds since the start of the match
+         */
+        private final long time;
+        /**
+         * Call encoded with the BinarySerializer of the player interface
+         */
+        private byte[] call;
+        /**
+         * Response encoded with the BinarySerializer, {@code null} if there
+         * was no response
+         */
+        private byte[] response;
+        /**
+         * Error message, {@code null} if there was no error
+         */
+        private String error;
+
+        private RecordedCall(String player, long id, boolean sync, long time) {
+            this.player = player;
+            this.id = id;
+            this.sync = sync;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.journal;
+
+import com.github.dperezcabrera.ge.io.BinarySerializer;
+import com.github.dperezcabrera.ge.io.MethodCall;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import static com.github.dperezcabrera.ge.journal.JournalFormat.*;
+
+/**
+ * Appends the records of one match to a memory-mapped file, see
+ * {@link JournalFormat}. Records are encoded in a reusable buffer and copied to
+ * the mapped region; the file grows one region at a time.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@Slf4j
+public class MatchRecorder implements AutoCloseable {
+
+    private static final int RECORD_OVERHEAD = 64;
+
+    @Getter
+    private final Path file;
+    @Getter
+    private final List<String> players;
+    private final Map<String, Integer> playerIndexes = new HashMap<>();
+    private final BinarySerializer serializer;
+    private final FileChannel channel;
+    private final int regionSize;
+    private final long startTime = System.nanoTime();
+    private final AtomicLong calls = new AtomicLong();
+    private MappedByteBuffer region;
+    private long regionStart;
+    private ByteBuffer record = ByteBuffer.allocate(256);
+    private boolean closed = false;
+
+    MatchRecorder(Path file, Class<?> playerType, Collection<String> players, int regionSize) {
+        this.file = file;
+        this.players = new ArrayList<>(players);
+        this.serializer = new BinarySerializer(playerType);
+        this.regionSize = regionSize;
+        for (int i = 0; i < this.players.size(); i++) {
+            playerIndexes.put(this.players.get(i), i);
+        }
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            region = channel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize);
+        } catch (IOException e) {
+            throw new JournalException("Error creating journal " + file, e);
+        }
+        synchronized (this) {
+            ByteBuffer header = prepare(stringSize(playerType.getName()));
+            header.putInt(MAGIC).put(VERSION);
+            putString(header, playerType.getName());
+            header.putLong(System.currentTimeMillis());
+            commit(header);
+            ByteBuffer start = begin(START, this.players.stream().mapToInt(MatchRecorder::stringSize).sum());
+            putVarint(start, this.players.size());
+            this.players.forEach(name -> putString(start, name));
+            commit(start);
+        }
+    }
+
+    public int getPlayerIndex(String player) {
+        Integer result = playerIndexes.get(player);
+        if (result == null) {
+            throw new JournalException("Unknown player '" + player + "'");
+        }
+        return result;
+    }
+
+    /**
+     * @return the id of the call, used by its response
+     */
+    public long call(int player, Method method, Object[] parameters, boolean sync) {
+        long id = calls.incrementAndGet();
+        byte[] call = serializer.serialize(MethodCall.call(method, parameters));
+        synchronized (this) {
+            ByteBuffer b = begin(CALL, call.length);
+            putVarint(b, player);
+            putVarint(b, id);
+            b.put((byte) (sync ? 1 : 0));
+            putBytes(b, call);
+            commit(b);
+        }
+        return id;
+    }
+
+    public void response(int player, long callId, Method method, Object response) {
+        byte[] encoded = serializer.serialize(MethodCall.response(method, response));
+        synchronized (this) {
+            ByteBuffer b = begin(RESPONSE, encoded.length);
+            putVarint(b, player);
+            putVarint(b, callId);
+            putBytes(b, encoded);
+            commit(b);
+        }
+    }
+
+    public synchronized void error(int player, long callId, Throwable error) {
+        String message = String.valueOf(error);
+        ByteBuffer b = begin(ERROR, stringSize(message));
+        putVarint(b, player);
+        putVarint(b, callId);
+        putString(b, message);
+        commit(b);
+    }
+
+    public synchronized void state(Enum<?> state) {
+        ByteBuffer b = begin(STATE, stringSize(state.name()));
+        putString(b, state.name());
+        commit(b);
+    }
+
+    public synchronized void end(Map<String, Double> scores) {
+        ByteBuffer b = begin(END, scores.keySet().stream().mapToInt(name -> stringSize(name) + Double.BYTES).sum());
+        putVarint(b, scores.size());
+        scores.forEach((name, score) -> {
+            putString(b, name);
+            b.putDouble(score == null ? Double.NaN : score);
+        });
+        commit(b);
+    }
+
+    public synchronized void abort(Throwable error) {
+        String message = String.valueOf(error);
+        ByteBuffer b = begin(ABORT, stringSize(message));
+        putString(b, message);
+        commit(b);
+    }
+
+    private static int stringSize(String value) {
+        return value.length() * 3 + 10;
+    }
+
+    private ByteBuffer prepare(int size) {
+        if (record.capacity() < size + RECORD_OVERHEAD) {
+            record = ByteBuffer.allocate(size + RECORD_OVERHEAD);
+        }
+        record.clear();
+        return record;
+    }
+
+    private ByteBuffer begin(byte type, int size) {
+        ByteBuffer result = prepare(size);
+        result.put(type);
+        putVarint(result, System.nanoTime() - startTime);
+        return result;
+    }
+
+    private void commit(ByteBuffer b) {
+        if (closed) {
+            return;
+        }
+        b.flip();
+        if (region.remaining() < b.remaining()) {
+            long position = regionStart + region.position();
+            try {
+                region = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(regionSize, b.remaining()));
+                regionStart = position;
+            } catch (IOException e) {
+                throw new JournalException("Error growing journal " + file, e);
+            }
+        }
+        region.put(b);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                region.force();
+                channel.truncate(regionStart + region.position());
+            } catch (IOException e) {
+                log.debug("Journal " + file + " not truncated", e);
+            } finally {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.error("Error closing journal " + file, e);
+                }
+            }
+        }
+    }
+}
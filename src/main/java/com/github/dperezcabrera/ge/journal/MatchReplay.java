@@ -0,0 +1,173 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.journal;
+
+import com.github.dperezcabrera.ge.ConnectorAdapterBuilderBase;
+import com.github.dperezcabrera.ge.GameContext;
+import com.github.dperezcabrera.ge.GameControllerBase;
+import com.github.dperezcabrera.ge.GameException;
+import com.github.dperezcabrera.ge.MethodInvoker;
+import com.github.dperezcabrera.ge.io.BinarySerializer;
+import com.github.dperezcabrera.ge.io.MethodCall;
+import com.github.dperezcabrera.ge.journal.MatchLog.RecordedCall;
+import com.github.dperezcabrera.ge.st.StateMachineDefinition;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import lombok.NonNull;
+
+/**
+ * Replays recorded matches against a state machine definition. The players are
+ * replaced by stubs that answer from the {@link MatchLog}, so a match is
+ * replayed in the calling thread without network, threads nor timeouts.
+ * <p>
+ * Every call of the game must match the next recorded call of the player,
+ * method and serialized parameters, otherwise the replay diverges and a
+ * {@link JournalException} is thrown. The replayed scores must also match the
+ * recorded ones and every recorded call must be consumed.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ * @param <P>
+ * @param <E>
+ * @param <M>
+ */
+public class MatchReplay<P, E extends Enum, M extends GameContext<P>> {
+
+    private final Class<P> playerType;
+    private final GameControllerBase<P, E, M> controller;
+    private final BinarySerializer serializer;
+
+    public MatchReplay(@NonNull Class<P> playerType, @NonNull StateMachineDefinition<E, M> stateMachine, @NonNull Supplier<M> contextFactory, @NonNull Properties properties) {
+        this.playerType = playerType;
+        this.controller = new GameControllerBase<>(playerType, stateMachine, contextFactory, properties, new ConnectorAdapterBuilderBase());
+        this.serializer = new BinarySerializer(playerType);
+    }
+
+    public Map<String, Double> replay(@NonNull Path file) {
+        return replay(MatchLog.read(file));
+    }
+
+    /**
+     * @return the replayed scores
+     */
+    public Map<String, Double> replay(@NonNull MatchLog log) {
+        if (!playerType.getName().equals(log.getPlayerType())) {
+            throw new JournalException("The match was recorded for " + log.getPlayerType());
+        }
+        Map<String, Deque<RecordedCall>> pending = new LinkedHashMap<>();
+        log.getPlayers().forEach(player -> pending.put(player, new ArrayDeque<>()));
+        log.getCalls().forEach(call -> pending.get(call.getPlayer()).add(call));
+        Replay replay = new Replay();
+        Map<String, MethodInvoker> invokers = new HashMap<>();
+        pending.forEach((player, calls) -> invokers.put(player, new ReplayMethodInvoker(replay, player, calls)));
+        Map<String, Double> scores;
+        try {
+            scores = controller.playAgainst(invokers);
+        } catch (RuntimeException e) {
+            if (replay.divergence != null) {
+                replay.divergence.addSuppressed(e);
+                throw replay.divergence;
+            }
+            throw e;
+        }
+        if (replay.divergence != null) {
+            throw replay.divergence;
+        }
+        pending.forEach((player, calls) -> {
+            if (!calls.isEmpty()) {
+                throw new JournalException("Replay diverged, player '" + player + "' has " + calls.size() + " recorded calls not made");
+            }
+        });
+        if (log.getScores() != null && !log.getScores().equals(normalize(scores))) {
+            throw new JournalException("Replay diverged, recorded scores " + log.getScores() + " but replayed " + scores);
+        }
+        return scores;
+    }
+
+    private static Map<String, Double> normalize(Map<String, Double> scores) {
+        Map<String, Double> result = new HashMap<>();
+        if (scores != null) {
+            scores.forEach((name, score) -> result.put(name, score == null ? Double.NaN : score));
+        }
+        return result;
+    }
+
+    private static class Replay {
+
+        private JournalException divergence;
+    }
+
+    private class ReplayMethodInvoker implements MethodInvoker {
+
+        private final Replay replay;
+        private final String player;
+        private final Deque<RecordedCall> calls;
+        private int index = 0;
+
+        ReplayMethodInvoker(Replay replay, String player, Deque<RecordedCall> calls) {
+            this.replay = replay;
+            this.player = player;
+            this.calls = calls;
+        }
+
+        @Override
+        public void asyncCall(Method m, Object[] parameters) {
+            next(m, parameters, false);
+        }
+
+        @Override
+        public Object call(Method m, Object[] parameters) {
+            RecordedCall call = next(m, parameters, true);
+            if (call.getError() != null) {
+                throw new GameException(call.getError());
+            } else if (call.getResponse() == null) {
+                throw diverge("call " + index + " of player '" + player + "' has no recorded response");
+            }
+            return serializer.deserialize(call.getResponse()).getResponse();
+        }
+
+        private RecordedCall next(Method m, Object[] parameters, boolean sync) {
+            index++;
+            RecordedCall call = calls.poll();
+            if (call == null) {
+                throw diverge("player '" + player + "' has no recorded call " + index + " to " + m.getName());
+            }
+            byte[] actual = serializer.serialize(MethodCall.call(m, parameters));
+            if (call.isSync() != sync || !Arrays.equals(call.getCall(), actual)) {
+                MethodCall expected = serializer.deserialize(call.getCall());
+                throw diverge("call " + index + " of player '" + player + "' was recorded as " + expected.getMethod().getName()
+                        + Arrays.deepToString(expected.getParameters()) + " but replayed as " + m.getName() + Arrays.deepToString(parameters));
+            }
+            return call;
+        }
+
+        private JournalException diverge(String message) {
+            JournalException result = new JournalException("Replay diverged, " + message);
+            if (replay.divergence == null) {
+                replay.divergence = result;
+            }
+            return result;
+        }
+    }
+}
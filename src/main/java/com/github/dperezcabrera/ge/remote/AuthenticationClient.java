@@ -15,7 +15,7 @@
  */
 package com.github.dperezcabrera.ge.remote;
 
-import com.github.dperezcabrera.ge.io.IOConnectorBase;
+import com.github.dperezcabrera.ge.io.IOConnector;
 
 /**
  *
@@ -24,5 +24,5 @@ import com.github.dperezcabrera.ge.io.IOConnectorBase;
 @FunctionalInterface
 public interface AuthenticationClient {
 
-    public boolean authenticate(IOConnectorBase connector);
+    public boolean authenticate(IOConnector connector);
 }
@@ -15,7 +15,11 @@
  */
 package com.github.dperezcabrera.ge.remote;
 
+import com.github.dperezcabrera.ge.io.FrameCodec;
 import com.github.dperezcabrera.ge.io.GameEvent;
+import com.github.dperezcabrera.ge.io.IOConnector;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.Map;
 
 import lombok.NonNull;
@@ -32,8 +36,20 @@ public enum AuthenticationLoginPassword {
     private static final String ACK_COMMAND = "Ack";
     private static final String AUTH_COMMAND = "Auth";
     private static final String ERROR_COMMAND = "Error";
+    private static final String OPTIONS_SEPARATOR = " ";
+    private static final String FRAME_OPTION = "frame";
+    private static final String DEFLATE_OPTION = "deflate";
+    private static final String CLIENT_OPTIONS = OPTIONS_SEPARATOR + FRAME_OPTION + "=" + FrameCodec.VERSION_2 + OPTIONS_SEPARATOR + DEFLATE_OPTION + "=true";
 
     public static AuthenticationServer getAuthenticationServer(Map<String, String> credentials) {
+        return getAuthenticationServer(credentials, 0);
+    }
+
+    /**
+     * @param compressionThreshold minimum payload size compressed once the
+     * client agrees, 0 disables the compression
+     */
+    public static AuthenticationServer getAuthenticationServer(Map<String, String> credentials, int compressionThreshold) {
         return (connector, timeout) -> {
             try {
                 GameEvent e = connector.receive(timeout);
@@ -43,7 +59,7 @@ public enum AuthenticationLoginPassword {
                         String login = currentCredentials[0].substring("login=".length());
                         String password = currentCredentials[1].substring("password=".length());
                         if (password.equals(credentials.get(login))) {
-                            connector.send(new GameEvent(ACK_COMMAND));
+                            acknowledge(connector, options(e.getCommand()), compressionThreshold);
                             return login;
                         } else {
                             connector.send(new GameEvent(ERROR_COMMAND, "Authentication Error\nincorrect login or password"));
@@ -63,12 +79,53 @@ public enum AuthenticationLoginPassword {
     public static AuthenticationClient getAuthenticationClient(@NonNull final String login, @NonNull final String password) {
         return connector -> {
             boolean result = false;
-            connector.send(new GameEvent(AUTH_COMMAND, "login=" + login + "\npassword=" + password));
+            connector.send(new GameEvent(AUTH_COMMAND + CLIENT_OPTIONS, "login=" + login + "\npassword=" + password));
             GameEvent e = connector.receive();
             if (ACK_COMMAND.equals(e.getCommand())) {
                 result = true;
+                Map<String, String> accepted = options(new String(e.getPayload(), StandardCharsets.UTF_8));
+                if (isFrameV2(accepted)) {
+                    connector.setFrameVersion(FrameCodec.VERSION_2);
+                    connector.setCompressionThreshold(Integer.parseInt(accepted.getOrDefault(DEFLATE_OPTION, "0")));
+                }
             }
             return result;
         };
     }
+
+    private static void acknowledge(IOConnector connector, Map<String, String> offered, int compressionThreshold) {
+        if (isFrameV2(offered)) {
+            String accepted = FRAME_OPTION + "=" + FrameCodec.VERSION_2;
+            boolean deflate = compressionThreshold > 0 && Boolean.parseBoolean(offered.get(DEFLATE_OPTION));
+            if (deflate) {
+                accepted += OPTIONS_SEPARATOR + DEFLATE_OPTION + "=" + compressionThreshold;
+            }
+            connector.send(new GameEvent(ACK_COMMAND, accepted));
+            connector.setFrameVersion(FrameCodec.VERSION_2);
+            if (deflate) {
+                connector.setCompressionThreshold(compressionThreshold);
+            }
+        } else {
+            connector.send(new GameEvent(ACK_COMMAND));
+        }
+    }
+
+    private static boolean isFrameV2(Map<String, String> options) {
+        return String.valueOf(FrameCodec.VERSION_2).equals(options.get(FRAME_OPTION));
+    }
+
+    /**
+     * Options are "key=value" words after the command name; peers that do not
+     * know them only look at the command name.
+     */
+    private static Map<String, String> options(String text) {
+        Map<String, String> result = new HashMap<>();
+        for (String option : text.split(OPTIONS_SEPARATOR)) {
+            int index = option.indexOf('=');
+            if (index > 0) {
+                result.put(option.substring(0, index), option.substring(index + 1));
+            }
+        }
+        return result;
+    }
 }
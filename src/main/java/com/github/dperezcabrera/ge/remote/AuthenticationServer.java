@@ -15,7 +15,7 @@
  */
 package com.github.dperezcabrera.ge.remote;
 
-import com.github.dperezcabrera.ge.io.IOConnectorBase;
+import com.github.dperezcabrera.ge.io.IOConnector;
 
 /**
  *
@@ -24,5 +24,5 @@ import com.github.dperezcabrera.ge.io.IOConnectorBase;
 @FunctionalInterface
 public interface AuthenticationServer {
 
-    public String login(IOConnectorBase connector, long timeOut);
+    public String login(IOConnector connector, long timeOut);
 }
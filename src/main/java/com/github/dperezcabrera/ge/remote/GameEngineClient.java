@@ -18,14 +18,22 @@ package com.github.dperezcabrera.ge.remote;
 import com.github.dperezcabrera.ge.GameException;
 import com.github.dperezcabrera.ge.MethodInvoker;
 import com.github.dperezcabrera.ge.impl.LocalMethodInvoker;
+import com.github.dperezcabrera.ge.io.IOConnector;
 import com.github.dperezcabrera.ge.io.IOConnectorBase;
 import com.github.dperezcabrera.ge.io.IOGameException;
 import com.github.dperezcabrera.ge.io.IOMethodInvoker;
 import com.github.dperezcabrera.ge.io.MethodCall;
+import com.github.dperezcabrera.ge.io.MultiplexConnector;
 import com.github.dperezcabrera.ge.io.Serializer;
+import com.github.dperezcabrera.ge.io.SessionListener;
 import java.io.IOException;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -36,6 +44,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class GameEngineClient implements AutoCloseable {
 
+    private static final ExecutorService CALLS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "game-engine-player");
+        t.setDaemon(true);
+        return t;
+    });
+
     private volatile boolean exit = false;
     private IOMethodInvoker methodInvoker;
 
@@ -52,11 +66,16 @@ public class GameEngineClient implements AutoCloseable {
             log.info("Connecting...  {}:{} > {} ", host, port, name);
             Socket socket = new Socket(host, port);
             log.info("Connected [Ok] {}:{} > {} ", host, port, name);
-            IOConnectorBase connector = new IOConnectorBase(socket.getInputStream(), socket.getOutputStream());
+            IOConnectorBase connector = new IOConnectorBase(socket);
             log.info("Authenticating...  {}:{} > {} ", host, port, name);
             if (authentication.authenticate(connector)) {
                 log.info("Authenticated [Ok] {}:{} > {} ", host, port, name);
-                GameEngineClient result = new GameEngineClient(new IOMethodInvoker(connector, serializer));
+                IOMethodInvoker invoker = new IOMethodInvoker(connector, serializer);
+                invoker.setCallExecutor(CALLS);
+                if (player instanceof SessionListener) {
+                    invoker.setSessionListener((SessionListener) player);
+                }
+                GameEngineClient result = new GameEngineClient(invoker);
                 executor.execute(result.getRunnable(new LocalMethodInvoker(player)));
                 return result;
             } else {
@@ -69,6 +88,52 @@ public class GameEngineClient implements AutoCloseable {
         }
     }
 
+    /**
+     * Connects several players through one connection. Every player is
+     * authenticated in its own channel and its calls are dispatched over the
+     * executor, in order for each player. The connection is closed when all
+     * the players have ended.
+     *
+     * @param players the players by name
+     * @param authentications the authentication of each player by name
+     * @param executor runs the calls to the players
+     * @return the clients of the authenticated players
+     */
+    public static <P> List<GameEngineClient> startMultiplexed(String host, int port, Map<String, P> players, Map<String, AuthenticationClient> authentications, Serializer<MethodCall, byte[]> serializer, Executor executor) {
+        MultiplexConnector multiplex;
+        try {
+            log.info("Connecting...  {}:{} > {} players", host, port, players.size());
+            Socket socket = new Socket(host, port);
+            log.info("Connected [Ok] {}:{} > {} players", host, port, players.size());
+            multiplex = MultiplexConnector.connect(new IOConnectorBase(socket), Runnable::run);
+        } catch (IOException e) {
+            throw new IOGameException("Error in start", e);
+        }
+        List<GameEngineClient> result = new ArrayList<>(players.size());
+        long channel = 0;
+        for (Map.Entry<String, P> entry : players.entrySet()) {
+            String name = entry.getKey();
+            IOConnector connector = multiplex.open(++channel);
+            AuthenticationClient authentication = authentications.get(name);
+            if (authentication != null && authentication.authenticate(connector)) {
+                log.info("Authenticated [Ok] {}:{} > {} ", host, port, name);
+                IOMethodInvoker invoker = new IOMethodInvoker(connector, serializer);
+                invoker.setCallExecutor(executor);
+                if (entry.getValue() instanceof SessionListener) {
+                    invoker.setSessionListener((SessionListener) entry.getValue());
+                }
+                GameEngineClient client = new GameEngineClient(invoker);
+                invoker.serve(new LocalMethodInvoker(entry.getValue()), () -> client.exit = true);
+                result.add(client);
+            } else {
+                log.info("Authentication Error {}:{} > {} ", host, port, name);
+                connector.close();
+            }
+        }
+        multiplex.closeWhenIdle();
+        return result;
+    }
+
     private Runnable getRunnable(MethodInvoker target) {
         return () -> {
             while (!exit) {
@@ -16,22 +16,35 @@
 package com.github.dperezcabrera.ge.remote;
 
 import com.github.dperezcabrera.ge.ConnectorAdapterBuilder;
-import com.github.dperezcabrera.ge.io.GameEvent;
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor;
+import com.github.dperezcabrera.ge.io.EventLoop;
+import com.github.dperezcabrera.ge.io.Heartbeat;
+import com.github.dperezcabrera.ge.io.IOConnector;
 import com.github.dperezcabrera.ge.io.IOConnectorBase;
 import com.github.dperezcabrera.ge.io.IOMethodInvoker;
 import com.github.dperezcabrera.ge.io.MethodCall;
+import com.github.dperezcabrera.ge.io.MultiplexConnector;
 import com.github.dperezcabrera.ge.io.Serializer;
 import com.github.dperezcabrera.ge.util.Utilities;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.ServerSocket;
-import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -43,14 +56,45 @@ import lombok.extern.slf4j.Slf4j;
 public class GameEngineServer implements AutoCloseable {
 
     public static final String EXIT_COMMAND = "exit";
+    public static final int DEFAULT_MAX_HANDSHAKES = 16;
+    private static final long ACCEPT_SLICE = 100;
 
     private ConnectorAdapterBuilder adapterBuilder;
     private Serializer<MethodCall, byte[]> serializer;
-    private List<IOConnectorBase> connectors = new ArrayList<>();
+    private List<IOMethodInvoker> invokers = Collections.synchronizedList(new ArrayList<>());
+    private int maxBatchSize;
+    private long maxBatchDelay;
+    private int maxHandshakes;
+    private volatile Heartbeat heartbeat;
 
     public GameEngineServer(ConnectorAdapterBuilder adapterBuilder, Serializer<MethodCall, byte[]> serializer) {
+        this(adapterBuilder, serializer, 1, 0);
+    }
+
+    public GameEngineServer(ConnectorAdapterBuilder adapterBuilder, Serializer<MethodCall, byte[]> serializer, int maxBatchSize, long maxBatchDelay) {
+        this(adapterBuilder, serializer, maxBatchSize, maxBatchDelay, DEFAULT_MAX_HANDSHAKES);
+    }
+
+    /**
+     * @param maxHandshakes maximum number of authentications in progress at
+     * the same time
+     */
+    public GameEngineServer(ConnectorAdapterBuilder adapterBuilder, Serializer<MethodCall, byte[]> serializer, int maxBatchSize, long maxBatchDelay, int maxHandshakes) {
+        Utilities.checkMinValueArgument(maxHandshakes, 1, "maxHandshakes");
+        Utilities.checkArgument(maxBatchSize > 1 && maxBatchDelay <= 0, "The batching requires a positive maxBatchDelay, found {0}", maxBatchDelay);
         this.adapterBuilder = adapterBuilder;
         this.serializer = serializer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelay = maxBatchDelay;
+        this.maxHandshakes = maxHandshakes;
+    }
+
+    /**
+     * Watches the sessions of the players logged from now on, so dead players
+     * are detected without waiting for the timeouts of their calls.
+     */
+    public void setHeartbeat(Heartbeat heartbeat) {
+        this.heartbeat = heartbeat;
     }
 
     public synchronized <P> Map<String, P> getPlayers(Class<P> type, int port, long connectionTimeOut, long authenticacionTimeOut, int players, AuthenticationServer autentication, Properties properties) throws IOException {
@@ -60,39 +104,215 @@ public class GameEngineServer implements AutoCloseable {
     }
 
     public synchronized <P> Map<String, P> getPlayers(Class<P> type, ServerSocket serverSocket, long connectionTimeOut, long authenticacionTimeOut, int players, AuthenticationServer autentication, Properties properties) throws IOException {
-        Map<Method, Long> timeouts = Utilities.calculateTimeouts(type, properties);
-        Map<String, P> result = new HashMap<>(players);
-        try {
+        try (Handshakes<P> handshakes = new Handshakes<>(type, authenticacionTimeOut, players, autentication, properties)) {
+            try {
+                long maxTime = System.currentTimeMillis() + connectionTimeOut;
+                long remaining = connectionTimeOut;
+                while (!handshakes.isFull() && remaining > 0) {
+                    handshakes.logWaiting(remaining);
+                    serverSocket.setSoTimeout((int) Math.max(1, Math.min(remaining, ACCEPT_SLICE)));
+                    try {
+                        handshakes.start(new IOConnectorBase(serverSocket.accept()), maxTime);
+                    } catch (SocketTimeoutException e) {
+                        // checking the handshakes
+                    }
+                    remaining = maxTime - System.currentTimeMillis();
+                }
+            } catch (IOException ex) {
+                log.error("Error: getPlayers", ex);
+            }
+            return handshakes.finish();
+        }
+    }
+
+    public synchronized <P> Map<String, P> getPlayers(Class<P> type, ServerSocketChannel serverChannel, EventLoop eventLoop, long connectionTimeOut, long authenticacionTimeOut, int players, AuthenticationServer autentication, Properties properties) throws IOException {
+        serverChannel.configureBlocking(false);
+        try (Handshakes<P> handshakes = new Handshakes<>(type, authenticacionTimeOut, players, autentication, properties);
+                Selector selector = Selector.open()) {
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
             long maxTime = System.currentTimeMillis() + connectionTimeOut;
-            while (result.size() < players) {
-                serverSocket.setSoTimeout((int) (maxTime - System.currentTimeMillis()));
-                log.info("Waiting players({}), timeout: {} ms", players - result.size(), serverSocket.getSoTimeout());
-                Socket socket = serverSocket.accept();
-                IOConnectorBase connector = new IOConnectorBase(socket.getInputStream(), socket.getOutputStream());
-                String name = autentication.login(connector, authenticacionTimeOut);
-                if (name != null && !result.containsKey(name)) {
-                    IOMethodInvoker mi = new IOMethodInvoker(connector, serializer);
-                    P player = adapterBuilder.connector(type, mi, timeouts);
-                    connectors.add(connector);
-                    result.put(name, player);
-                } else {
-                    connector.close();
+            long remaining = connectionTimeOut;
+            while (!handshakes.isFull() && remaining > 0) {
+                handshakes.logWaiting(remaining);
+                if (selector.select(Math.min(remaining, ACCEPT_SLICE)) > 0) {
+                    selector.selectedKeys().clear();
+                    SocketChannel channel = serverChannel.accept();
+                    while (channel != null) {
+                        handshakes.start(eventLoop.register(channel), maxTime);
+                        channel = handshakes.isFull() ? null : serverChannel.accept();
+                    }
                 }
+                remaining = maxTime - System.currentTimeMillis();
             }
-            log.info("All players are ready");
-        } catch (SocketTimeoutException e) {
-            log.info("Time is end: connected players: {}", result.size());
-        } catch (IOException ex) {
-            log.error("Error: getPlayers", ex);
+            return handshakes.finish();
         }
-        return result;
     }
 
     @Override
     public void close() {
-        connectors.forEach(c -> {
-            c.send(GameEvent.EXIT);
-            c.close();
-        });
+        invokers.forEach(IOMethodInvoker::exit);
+    }
+
+    IOMethodInvoker invoker(IOConnector connector) {
+        IOMethodInvoker result = new IOMethodInvoker(connector, serializer, maxBatchSize, maxBatchDelay);
+        invokers.add(result);
+        Heartbeat current = heartbeat;
+        if (current != null) {
+            current.watch(result);
+        }
+        return result;
+    }
+
+    <P> P connector(Class<P> type, IOMethodInvoker invoker, Map<Method, Long> timeouts) {
+        return adapterBuilder.connector(type, invoker, timeouts);
+    }
+
+    /**
+     * Sends the exit command to a player and forgets its invoker.
+     */
+    void release(IOMethodInvoker invoker) {
+        invokers.remove(invoker);
+        Heartbeat current = heartbeat;
+        if (current != null) {
+            current.unwatch(invoker);
+        }
+        invoker.exit();
+    }
+
+    /**
+     * Authenticates the accepted connections concurrently on a bounded pool,
+     * so a slow client does not delay the others. The first logins fill the
+     * match; later ones are closed. A multiplexed connection opening more
+     * channels than players is closed.
+     */
+    private class Handshakes<P> implements AutoCloseable {
+
+        private final Class<P> type;
+        private final Map<Method, Long> timeouts;
+        private final long authenticacionTimeOut;
+        private final int players;
+        private final AuthenticationServer autentication;
+        private final Map<String, P> result;
+        private final ExecutorService pool;
+        private final Semaphore slots = new Semaphore(maxHandshakes);
+        private boolean done = false;
+        private int logged = -1;
+
+        Handshakes(Class<P> type, long authenticacionTimeOut, int players, AuthenticationServer autentication, Properties properties) {
+            this.type = type;
+            this.timeouts = PlayerInterfaceDescriptor.of(type).resolveTimeouts(properties);
+            this.authenticacionTimeOut = authenticacionTimeOut;
+            this.players = players;
+            this.autentication = autentication;
+            this.result = new HashMap<>(players);
+            this.pool = Executors.newFixedThreadPool(maxHandshakes, r -> {
+                Thread t = new Thread(r, "game-engine-handshake");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        /**
+         * Waits for a free slot until the match is full or the connection
+         * time ends, then the connector is closed.
+         *
+         * @param maxTime end of the connection time, in milliseconds
+         */
+        void start(IOConnector connector, long maxTime) {
+            try {
+                while (!slots.tryAcquire(ACCEPT_SLICE, TimeUnit.MILLISECONDS)) {
+                    if (isFull() || System.currentTimeMillis() >= maxTime) {
+                        connector.close();
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                connector.close();
+                return;
+            }
+            try {
+                pool.execute(() -> {
+                    try {
+                        accept(connector);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                slots.release();
+                connector.close();
+            }
+        }
+
+        private void accept(IOConnector connector) {
+            IOConnector single = MultiplexConnector.accept(connector, authenticacionTimeOut, players, this::loginChannel);
+            if (single != null) {
+                login(single);
+            }
+        }
+
+        private void loginChannel(IOConnector channel) {
+            try {
+                pool.execute(() -> login(channel));
+            } catch (RejectedExecutionException e) {
+                channel.close();
+            }
+        }
+
+        private void login(IOConnector connector) {
+            String name = null;
+            try {
+                name = autentication.login(connector, authenticacionTimeOut);
+            } catch (RuntimeException e) {
+                log.error("Login error", e);
+            }
+            synchronized (this) {
+                if (name != null && !done && result.size() < players && !result.containsKey(name)) {
+                    result.put(name, connector(type, invoker(connector), timeouts));
+                    return;
+                }
+            }
+            connector.close();
+        }
+
+        synchronized boolean isFull() {
+            return result.size() >= players;
+        }
+
+        synchronized void logWaiting(long remaining) {
+            if (logged != result.size()) {
+                logged = result.size();
+                log.info("Waiting players({}), timeout: {} ms", players - result.size(), remaining);
+            }
+        }
+
+        /**
+         * Waits for the handshakes in progress when the match is not full yet.
+         */
+        Map<String, P> finish() {
+            pool.shutdown();
+            if (!isFull()) {
+                try {
+                    pool.awaitTermination(authenticacionTimeOut + ACCEPT_SLICE, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (this) {
+                done = true;
+                if (result.size() < players) {
+                    log.info("Time is end: connected players: {}", result.size());
+                } else {
+                    log.info("All players are ready");
+                }
+                return new HashMap<>(result);
+            }
+        }
+
+        @Override
+        public void close() {
+            pool.shutdownNow();
+        }
     }
 }
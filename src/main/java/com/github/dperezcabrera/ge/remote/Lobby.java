@@ -0,0 +1,370 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.remote;
+
+import com.github.dperezcabrera.ge.GameRunner;
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor;
+import com.github.dperezcabrera.ge.io.IOConnector;
+import com.github.dperezcabrera.ge.io.IOConnectorBase;
+import com.github.dperezcabrera.ge.io.IOMethodInvoker;
+import com.github.dperezcabrera.ge.io.MultiplexConnector;
+import com.github.dperezcabrera.ge.util.Utilities;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Long-running lobby on a single server socket. It keeps accepting clients and
+ * authenticating them concurrently; authenticated players wait in a ready
+ * queue until the {@link PairingRule} forms a match with them, which is played
+ * by a {@link GameRunner}. Players keep their {@link RemoteSession} across
+ * matches: at the end of a match the {@link MatchListener} is notified and the
+ * players whose connection is still open go back to the queue. They are sent
+ * the exit command when the lobby is closed. A multiplexed connection opening
+ * more channels than {@link #setMaxChannels(int)} allows is closed.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ * @param <P>
+ */
+@Slf4j
+public class Lobby<P> implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_CHANNELS = 64;
+    private static final int ACCEPT_SLICE = 100;
+    private static final MatchListener NO_LISTENER = (players, scores, error) -> {
+    };
+
+    private final GameEngineServer server;
+    private final Class<P> type;
+    private final AuthenticationServer autentication;
+    private final long authenticacionTimeOut;
+    private final Map<Method, Long> timeouts;
+    private final PairingRule<P> pairing;
+    private final GameRunner<P> runner;
+    private final MatchListener listener;
+    private final List<LobbyPlayer<P>> waiting = new ArrayList<>();
+    private final Set<String> connected = new HashSet<>();
+    private final AtomicLong matches = new AtomicLong();
+    private final Semaphore slots;
+    private final ExecutorService handshakes;
+    private Thread acceptor;
+    private volatile int maxChannels = DEFAULT_MAX_CHANNELS;
+    private volatile boolean closed = false;
+
+    public Lobby(GameEngineServer server, Class<P> type, AuthenticationServer autentication, long authenticacionTimeOut, Properties properties, PairingRule<P> pairing, GameRunner<P> runner) {
+        this(server, type, autentication, authenticacionTimeOut, properties, pairing, runner, NO_LISTENER, GameEngineServer.DEFAULT_MAX_HANDSHAKES);
+    }
+
+    /**
+     * @param maxHandshakes maximum number of authentications in progress at
+     * the same time
+     */
+    public Lobby(@NonNull GameEngineServer server, @NonNull Class<P> type, @NonNull AuthenticationServer autentication, long authenticacionTimeOut, @NonNull Properties properties, @NonNull PairingRule<P> pairing, @NonNull GameRunner<P> runner, @NonNull MatchListener listener, int maxHandshakes) {
+        Utilities.checkMinValueArgument(maxHandshakes, 1, "maxHandshakes");
+        this.server = server;
+        this.type = type;
+        this.autentication = autentication;
+        this.authenticacionTimeOut = authenticacionTimeOut;
+        this.timeouts = PlayerInterfaceDescriptor.of(type).resolveTimeouts(properties);
+        this.pairing = pairing;
+        this.runner = runner;
+        this.listener = listener;
+        this.slots = new Semaphore(maxHandshakes);
+        this.handshakes = Executors.newFixedThreadPool(maxHandshakes, r -> {
+            Thread t = new Thread(r, "game-engine-handshake");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @param maxChannels maximum number of channels open at the same time on a
+     * multiplexed connection
+     */
+    public void setMaxChannels(int maxChannels) {
+        Utilities.checkMinValueArgument(maxChannels, 1, "maxChannels");
+        this.maxChannels = maxChannels;
+    }
+
+    /**
+     * Starts accepting clients from the server socket in a background thread,
+     * until the lobby is closed.
+     */
+    public synchronized void start(@NonNull ServerSocket serverSocket) {
+        if (acceptor != null) {
+            throw new IllegalStateException("The lobby is already started");
+        }
+        acceptor = new Thread(() -> accept(serverSocket), "game-engine-lobby");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Keeps accepting after a failed accept, such as one out of file
+     * descriptors, waiting a moment before the next one.
+     */
+    private void accept(ServerSocket serverSocket) {
+        while (!closed && !serverSocket.isClosed()) {
+            IOConnector connector;
+            try {
+                serverSocket.setSoTimeout(ACCEPT_SLICE);
+                connector = connector(serverSocket.accept());
+            } catch (SocketTimeoutException e) {
+                continue; // checking if the lobby is closed
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                log.error("Error accepting players", e);
+                if (!pause()) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                connector.close();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            handshake(connector);
+        }
+    }
+
+    private static IOConnector connector(Socket socket) throws IOException {
+        try {
+            return new IOConnectorBase(socket);
+        } catch (IOException e) {
+            Utilities.close(socket);
+            throw e;
+        }
+    }
+
+    /**
+     * @return false when interrupted
+     */
+    private static boolean pause() {
+        try {
+            Thread.sleep(ACCEPT_SLICE);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void handshake(IOConnector connector) {
+        try {
+            handshakes.execute(() -> {
+                try {
+                    accept(connector);
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            connector.close();
+        }
+    }
+
+    private void accept(IOConnector connector) {
+        IOConnector single = MultiplexConnector.accept(connector, authenticacionTimeOut, maxChannels, this::loginChannel);
+        if (single != null) {
+            login(single);
+        }
+    }
+
+    private void loginChannel(IOConnector channel) {
+        try {
+            handshakes.execute(() -> login(channel));
+        } catch (RejectedExecutionException e) {
+            channel.close();
+        }
+    }
+
+    private void login(IOConnector connector) {
+        String name = null;
+        try {
+            name = autentication.login(connector, authenticacionTimeOut);
+        } catch (RuntimeException e) {
+            log.error("Login error", e);
+        }
+        RemoteSession<P> session = null;
+        synchronized (waiting) {
+            if (name != null && !closed && connected.add(name)) {
+                log.info("Player '{}' is waiting", name);
+                IOMethodInvoker invoker = server.invoker(connector);
+                session = new RemoteSession<>(name, server.connector(type, invoker, timeouts), invoker);
+            }
+        }
+        if (session != null) {
+            enqueue(Collections.singletonList(session));
+        } else {
+            connector.close();
+        }
+    }
+
+    /**
+     * Puts the sessions in the queue and starts the matches formed. The
+     * matches are started out of the lock of the queue; the players of a match
+     * ended before the start returned are queued again here, not recursively.
+     */
+    private void enqueue(List<RemoteSession<P>> sessions) {
+        List<RemoteSession<P>> pending = sessions;
+        while (!pending.isEmpty()) {
+            List<RemoteSession<P>> left = new ArrayList<>();
+            List<List<LobbyPlayer<P>>> formed = new ArrayList<>();
+            synchronized (waiting) {
+                pending.forEach(session -> {
+                    if (closed || session.isClosed()) {
+                        left.add(session);
+                    } else {
+                        waiting.add(new LobbyPlayer<>(session));
+                    }
+                });
+                waiting.removeIf(p -> p.getSession().isClosed() && left.add(p.getSession()));
+                List<LobbyPlayer<P>> match = waiting.isEmpty() ? null : pairing.pair(Collections.unmodifiableList(waiting));
+                while (match != null && !match.isEmpty()) {
+                    waiting.removeAll(match);
+                    formed.add(new ArrayList<>(match));
+                    match = waiting.isEmpty() ? null : pairing.pair(Collections.unmodifiableList(waiting));
+                }
+            }
+            left.forEach(session -> {
+                log.info("Player '{}' left the lobby", session.getName());
+                leave(session);
+            });
+            pending = new ArrayList<>();
+            for (List<LobbyPlayer<P>> match : formed) {
+                pending.addAll(play(match));
+            }
+        }
+    }
+
+    /**
+     * @return the sessions of the match when it already ended, to be queued
+     * again by the caller
+     */
+    private List<RemoteSession<P>> play(List<LobbyPlayer<P>> match) {
+        List<RemoteSession<P>> sessions = new ArrayList<>(match.size());
+        List<String> names = new ArrayList<>(match.size());
+        match.forEach(p -> {
+            sessions.add(p.getSession());
+            names.add(p.getName());
+        });
+        log.info("Starting match of {}", names);
+        CompletableFuture<Map<String, Double>> result;
+        try {
+            result = runner.submitSessions(sessions);
+        } catch (RuntimeException e) {
+            log.error("Error starting match of {}", names, e);
+            sessions.forEach(this::leave);
+            notifyEnd(names, null, e);
+            return Collections.emptyList();
+        }
+        matches.incrementAndGet();
+        if (result.isDone()) {
+            Map<String, Double> scores = null;
+            Throwable error = null;
+            try {
+                scores = result.join();
+            } catch (CompletionException | CancellationException e) {
+                error = e;
+            }
+            notifyEnd(names, scores, error);
+            return sessions;
+        }
+        result.whenComplete((scores, error) -> {
+            notifyEnd(names, scores, error);
+            enqueue(sessions);
+        });
+        return Collections.emptyList();
+    }
+
+    private void notifyEnd(List<String> names, Map<String, Double> scores, Throwable error) {
+        try {
+            listener.onMatchEnd(names, scores, error);
+        } catch (RuntimeException e) {
+            log.warn("Error in match listener", e);
+        }
+    }
+
+    private void leave(RemoteSession<P> session) {
+        server.release(session.getInvoker());
+        synchronized (waiting) {
+            connected.remove(session.getName());
+        }
+    }
+
+    public int getWaitingPlayers() {
+        synchronized (waiting) {
+            return waiting.size();
+        }
+    }
+
+    /**
+     * @return number of matches started
+     */
+    public long getMatches() {
+        return matches.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        handshakes.shutdownNow();
+        Thread current;
+        synchronized (this) {
+            current = acceptor;
+        }
+        if (current != null) {
+            try {
+                current.join(ACCEPT_SLICE * 2L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<LobbyPlayer<P>> left;
+        synchronized (waiting) {
+            left = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+        left.forEach(p -> leave(p.getSession()));
+    }
+}
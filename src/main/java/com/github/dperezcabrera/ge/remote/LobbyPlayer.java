@@ -0,0 +1,45 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.remote;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Authenticated player waiting in a {@link Lobby}.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ * @param <P>
+ */
+@Getter
+public class LobbyPlayer<P> {
+
+    private final String name;
+    private final P player;
+    /**
+     * Time in milliseconds when the player started waiting
+     */
+    private final long since;
+    @Getter(AccessLevel.PACKAGE)
+    private final RemoteSession<P> session;
+
+    LobbyPlayer(RemoteSession<P> session) {
+        this.name = session.getName();
+        this.player = session.getPlayer();
+        this.session = session;
+        this.since = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,34 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.remote;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Notified by a {@link Lobby} at the end of every match.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+@FunctionalInterface
+public interface MatchListener {
+
+    /**
+     * @param scores the scores, null when the match failed
+     * @param error the error of a failed match, otherwise null
+     */
+    public void onMatchEnd(List<String> players, Map<String, Double> scores, Throwable error);
+}
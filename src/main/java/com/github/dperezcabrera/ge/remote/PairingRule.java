@@ -0,0 +1,46 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.remote;
+
+import com.github.dperezcabrera.ge.util.Utilities;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forms matches from the players waiting in a {@link Lobby}.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ * @param <P>
+ */
+@FunctionalInterface
+public interface PairingRule<P> {
+
+    /**
+     * @param waiting the waiting players in arrival order, it must not be
+     * modified
+     * @return the players of the next match, or an empty list when no match
+     * can be formed yet
+     */
+    public List<LobbyPlayer<P>> pair(List<LobbyPlayer<P>> waiting);
+
+    /**
+     * Matches the first players that arrived, in groups of the given size.
+     */
+    public static <P> PairingRule<P> firstCome(int players) {
+        Utilities.checkMinValueArgument(players, 1, "players");
+        return waiting -> waiting.size() < players ? new ArrayList<>() : new ArrayList<>(waiting.subList(0, players));
+    }
+}
@@ -0,0 +1,55 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.remote;
+
+import com.github.dperezcabrera.ge.PlayerSession;
+import com.github.dperezcabrera.ge.io.IOMethodInvoker;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Session of an authenticated remote player; the match events are sent
+ * through its connection.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ * @param <P>
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class RemoteSession<P> implements PlayerSession<P> {
+
+    private final String name;
+    private final P player;
+    @Getter(AccessLevel.PACKAGE)
+    private final IOMethodInvoker invoker;
+
+    @Override
+    public void startMatch(String match) {
+        invoker.startMatch(match);
+    }
+
+    @Override
+    public void endMatch(String match) {
+        invoker.endMatch(match);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return invoker.isClosed();
+    }
+}
@@ -65,4 +65,8 @@ public class StateMachineDefinition<S extends Enum, T> {
     public StateMachineInstance<S, T> startInstance(T data) {
         return new StateMachineInstance(data, this, initState);
     }
+
+    public StateMachineInstance<S, T> startInstance(T data, StateObserver<S, T> observer) {
+        return new StateMachineInstance(data, this, initState, observer);
+    }
 }
@@ -30,13 +30,19 @@ public class StateMachineInstance<E extends Enum, M> {
     @Getter
     private final M context;
     private final StateMachineDefinition<E, M> parent;
+    private final StateObserver<E, M> observer;
     private E state;
     private volatile boolean finish;
     private volatile boolean running;
 
     public StateMachineInstance(M context, StateMachineDefinition<E, M> parent, E state) {
+        this(context, parent, state, null);
+    }
+
+    public StateMachineInstance(M context, StateMachineDefinition<E, M> parent, E state, StateObserver<E, M> observer) {
         this.context = context;
         this.parent = parent;
+        this.observer = observer;
         this.state = state;
         this.finish = false;
     }
@@ -55,6 +61,9 @@ public class StateMachineInstance<E extends Enum, M> {
             try {
                 while (state != null) {
                     log.debug("state \"{}\" executing...", state);
+                    if (observer != null) {
+                        observer.onState(state, context);
+                    }
                     parent.getTrigger(state).execute(context);
                     log.debug("state \"{}\" [executed]", state);
                     state = nextState(state);
@@ -0,0 +1,30 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.st;
+
+/**
+ * Notified every time a {@link StateMachineInstance} enters a state, before
+ * its trigger is executed.
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ * @param <S>
+ * @param <T>
+ */
+@FunctionalInterface
+public interface StateObserver<S extends Enum, T> {
+
+    public void onState(S state, T context);
+}
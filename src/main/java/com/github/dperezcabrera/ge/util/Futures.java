@@ -0,0 +1,71 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.util;
+
+import com.github.dperezcabrera.ge.GameException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public enum Futures {
+    ;// without instances
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = initScheduler();
+
+    private static ScheduledThreadPoolExecutor initScheduler() {
+        ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "game-engine-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        result.setRemoveOnCancelPolicy(true);
+        return result;
+    }
+
+    public static ScheduledFuture<?> schedule(Runnable task, long delay) {
+        return SCHEDULER.schedule(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeout, Supplier<? extends Throwable> error) {
+        if (!future.isDone()) {
+            ScheduledFuture<?> task = schedule(() -> future.completeExceptionally(error.get()), timeout);
+            future.whenComplete((r, e) -> task.cancel(false));
+        }
+        return future;
+    }
+
+    public static <T> T await(CompletionStage<T> stage, String description) {
+        try {
+            return stage.toCompletableFuture().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GameException("Interrupted Exception in " + description, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new GameException("Error in " + description, ex.getCause());
+        }
+    }
+}
@@ -15,16 +15,13 @@
  */
 package com.github.dperezcabrera.ge.util;
 
-import com.github.dperezcabrera.ge.GameException;
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor;
 import com.github.dperezcabrera.ge.annotations.Command;
-import com.github.dperezcabrera.ge.annotations.Timeout;
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.text.MessageFormat;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -60,24 +57,7 @@ public enum Utilities {
     }
 
     public static Map<Method, Long> calculateTimeouts(Class<?> type, Properties properties) {
-        try {
-            Map<Method, Long> result = new HashMap<>();
-            Timeout timeoutDefault = type.getDeclaredAnnotation(Timeout.class);
-            for (Method method : type.getMethods()) {
-                Timeout timeout = get(method.getAnnotation(Timeout.class), timeoutDefault);
-                if (method.getReturnType() == void.class || timeout == null) {
-                    result.put(method, null);
-                } else if (!properties.containsKey(timeout.value())) {
-                    log.warn("Propery \"{}\" not defined", timeout.value());
-                    result.put(method, null);
-                } else {
-                    result.put(method, Long.parseLong(properties.getProperty(timeout.value())));
-                }
-            }
-            return Collections.unmodifiableMap(result);
-        } catch (Exception e) {
-            throw new GameException("Property timeout error", e);
-        }
+        return PlayerInterfaceDescriptor.of(type).resolveTimeouts(properties);
     }
     
     public static String getCommandName(Method m){
@@ -91,14 +71,6 @@ public enum Utilities {
         return result;
     }
 
-    private static <T> T get(T element, T alternativeIfNull) {
-        T result = element;
-        if (result == null) {
-            result = alternativeIfNull;
-        }
-        return result;
-    }
-
     
     private static void doCheckArgument(boolean throwException, String message, Object... args) {
         if (throwException) {
@@ -0,0 +1,93 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge;
+
+import com.github.dperezcabrera.ge.annotations.ConnectorAdapter;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class ConnectorAdapterBuilderBaseTests {
+
+    ConnectorAdapterBuilderBase instance = new ConnectorAdapterBuilderBase();
+    MethodInvoker invokerMock = mock(MethodInvoker.class);
+
+    @Test
+    public void testGeneratedAdapter() throws NoSuchMethodException {
+        Method getValue = PlayerStrategy.class.getMethod("getValue", List.class);
+        Method getScore = PlayerStrategy.class.getMethod("getScore");
+        Method notify = PlayerStrategy.class.getMethod("notify", Object.class);
+        Map<Method, Long> timeouts = new HashMap<>();
+        timeouts.put(getValue, 100L);
+        given(invokerMock.call(eq(getValue), any())).willReturn(7);
+
+        PlayerStrategy result = instance.connector(PlayerStrategy.class, invokerMock, timeouts);
+
+        assertFalse(Proxy.isProxyClass(result.getClass()));
+        assertEquals(7, result.getValue(List.of("a")));
+        assertEquals(0, result.getScore());
+        result.notify("message");
+        then(invokerMock).should().call(getValue, new Object[]{List.of("a")});
+        then(invokerMock).should().asyncCall(getScore, new Object[0]);
+        then(invokerMock).should().asyncCall(notify, new Object[]{"message"});
+    }
+
+    @Test
+    public void testProxyAdapter() throws NoSuchMethodException {
+        Method getName = Named.class.getMethod("getName");
+
+        Named result = instance.connector(Named.class, invokerMock, new HashMap<>());
+
+        assertTrue(Proxy.isProxyClass(result.getClass()));
+        assertNull(result.getName());
+        then(invokerMock).should().asyncCall(getName, new Object[0]);
+    }
+
+    public interface Notifier<T> {
+
+        public void notify(T message);
+    }
+
+    @ConnectorAdapter
+    public interface PlayerStrategy extends Notifier<String> {
+
+        public int getValue(List<String> values);
+
+        public int getScore();
+    }
+
+    public interface Named {
+
+        public String getName();
+    }
+}
@@ -0,0 +1,150 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge;
+
+import com.github.dperezcabrera.ge.annotations.Timeout;
+import com.github.dperezcabrera.ge.io.PreparedCall;
+import com.github.dperezcabrera.ge.st.StateMachineDefinition;
+import com.github.dperezcabrera.ge.st.StateMachineDefinitionBuilder;
+import com.github.dperezcabrera.ge.st.StateMachineDefinitionBuilder.StateTriggerBuilder;
+import com.github.dperezcabrera.ge.st.StateMachineException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class GameContextTests {
+
+    Map<String, PlayerResult<Integer>> results = new HashMap<>();
+
+    @Test
+    public void testAskAll() {
+        CountDownLatch latch = new CountDownLatch(2);
+        Map<String, PlayerStrategy> players = new HashMap<>();
+        players.put("a", v -> {
+            latch.countDown();
+            await(latch);
+            return v + 1;
+        });
+        players.put("b", v -> {
+            latch.countDown();
+            await(latch);
+            return v + 2;
+        });
+        players.put("error", v -> {
+            throw new IllegalStateException();
+        });
+
+        play(c -> results.putAll(c.askAll(p -> p.getValue(10))), players);
+
+        assertEquals(11, results.get("a").get());
+        assertEquals(12, results.get("b").get());
+        assertFalse(results.get("error").isSuccess());
+        assertThrows(GameException.class, results.get("error")::get);
+    }
+
+    @Test
+    public void testAskTimeout() {
+        CountDownLatch latch = new CountDownLatch(1);
+        Map<String, PlayerStrategy> players = new HashMap<>();
+        players.put("a", v -> v);
+        players.put("slow", v -> {
+            await(latch);
+            return v;
+        });
+
+        play(c -> results.putAll(c.ask(List.of("slow"), p -> p.getValue(1))), players);
+        latch.countDown();
+
+        assertEquals(1, results.size());
+        assertTrue(results.get("slow").getError().getMessage().startsWith("TimeOut error"));
+    }
+
+    @Test
+    public void testAskAllWithoutCall() {
+        Map<String, PlayerStrategy> players = new HashMap<>();
+        players.put("a", v -> v);
+
+        assertThrows(StateMachineException.class, () -> play(c -> c.askAll(p -> 0), players));
+    }
+
+    @Test
+    public void testTellAll() {
+        MethodInvoker firstMock = mock(MethodInvoker.class);
+        MethodInvoker secondMock = mock(MethodInvoker.class);
+        ConnectorAdapterBuilderBase builder = new ConnectorAdapterBuilderBase();
+        Map<String, PlayerStrategy> players = new HashMap<>();
+        players.put("a", builder.connector(PlayerStrategy.class, firstMock, new HashMap<>()));
+        players.put("b", builder.connector(PlayerStrategy.class, secondMock, new HashMap<>()));
+        ArgumentCaptor<PreparedCall> captor = ArgumentCaptor.forClass(PreparedCall.class);
+
+        play(c -> c.tellAll(p -> p.notify("hello")), players);
+
+        then(firstMock).should(timeout(1000)).asyncCall(captor.capture());
+        then(secondMock).should(timeout(1000)).asyncCall(captor.getValue());
+        assertEquals("notify", captor.getValue().getMethod().getName());
+        assertEquals("hello", captor.getValue().getParameters()[0]);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void play(Consumer<Model> trigger, Map<String, PlayerStrategy> players) {
+        StateMachineDefinition<State, Model> stateMachine = StateMachineDefinitionBuilder.<State, Model> create(State.A)
+                .add(StateTriggerBuilder.<State, Model> state(State.A).trigger(trigger::accept)).build();
+        Properties properties = new Properties();
+        properties.setProperty("timeout.getValue", "300");
+        new GameControllerBase<>(PlayerStrategy.class, stateMachine, Model::new, properties, new ConnectorAdapterBuilderBase()).play(players);
+    }
+
+    public interface PlayerStrategy {
+
+        @Timeout("timeout.getValue")
+        public Integer getValue(int value);
+
+        public default void notify(String message) {
+        }
+    }
+
+    public static class Model extends GameContext<PlayerStrategy> {
+    }
+
+    public enum State {
+        A
+    }
+}
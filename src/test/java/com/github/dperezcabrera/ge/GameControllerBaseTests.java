@@ -16,16 +16,24 @@
 package com.github.dperezcabrera.ge;
 
 import com.github.dperezcabrera.ge.annotations.Timeout;
+import com.github.dperezcabrera.ge.impl.PlayerExecutors;
 import com.github.dperezcabrera.ge.st.StateMachineDefinition;
 import com.github.dperezcabrera.ge.st.StateMachineInstance;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 import static org.junit.Assert.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.Test;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 
@@ -133,6 +141,77 @@ public class GameControllerBaseTests {
         assertEquals(expectResultMock, result);
     }
 
+    @Test
+    public void testPlaySessionsEndsAfterTheCallsOfThePlayers() {
+        testPlaySessionsEndsAfterTheCallsOfThePlayers(PlayerExecutors.dedicatedThread());
+    }
+
+    @Test
+    public void testPlaySessionsEndsAfterTheCallsOfThePlayersInSharedPool() {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            testPlaySessionsEndsAfterTheCallsOfThePlayers(PlayerExecutors.sharedPool(pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void testPlaySessionsEndsAfterTheCallsOfThePlayers(PlayerExecutorFactory playerExecutorFactory) {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        Spectator spectator = score -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add("result");
+        };
+        StateMachineDefinition<State, SpectatorModel> stateMachine = mock(StateMachineDefinition.class);
+        given(stateMachine.startInstance(any())).willAnswer(inv -> {
+            SpectatorModel model = inv.getArgument(0);
+            StateMachineInstance<State, SpectatorModel> stateMachineInstance = mock(StateMachineInstance.class);
+            given(stateMachineInstance.execute()).willAnswer(i -> {
+                model.tellAll(s -> s.sendResult(1d));
+                model.setScores(map("player", 1d));
+                return model;
+            });
+            return stateMachineInstance;
+        });
+        PlayerSession<Spectator> session = new PlayerSession<Spectator>() {
+            @Override
+            public String getName() {
+                return "player";
+            }
+
+            @Override
+            public Spectator getPlayer() {
+                return spectator;
+            }
+
+            @Override
+            public void startMatch(String match) {
+                events.add("start");
+            }
+
+            @Override
+            public void endMatch(String match) {
+                events.add("end");
+            }
+
+            @Override
+            public boolean isClosed() {
+                return false;
+            }
+        };
+        GameController<Spectator> controller = new GameControllerBase<>(Spectator.class, stateMachine, SpectatorModel::new, new Properties(),
+                new ConnectorAdapterBuilderBase(), playerExecutorFactory);
+
+        controller.playSessions(Collections.singletonList(session));
+        controller.playSessions(Collections.singletonList(session));
+
+        assertEquals(Arrays.asList("start", "result", "end", "start", "result", "end"), events);
+    }
+
     private static <K, V> Map<K, V> map(K key, V value) {
         Map<K, V> result = new HashMap<>();
         result.put(key, value);
@@ -149,6 +228,15 @@ public class GameControllerBaseTests {
     public static class Model extends GameContext<PlayerStrategy> {
     }
 
+    @FunctionalInterface
+    public interface Spectator {
+
+        public void sendResult(Double score);
+    }
+
+    public static class SpectatorModel extends GameContext<Spectator> {
+    }
+
     public enum State {
         A, B, C, D
     }
@@ -0,0 +1,138 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge;
+
+import com.github.dperezcabrera.ge.annotations.Timeout;
+import com.github.dperezcabrera.ge.st.StateMachineDefinition;
+import com.github.dperezcabrera.ge.st.StateMachineDefinitionBuilder;
+import com.github.dperezcabrera.ge.st.StateMachineDefinitionBuilder.StateTriggerBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class GameRunnerTests {
+
+    private static final int MATCHES = 4;
+
+    @Test
+    public void testPlayAllConcurrently() {
+        CyclicBarrier barrier = new CyclicBarrier(MATCHES);
+        StateMachineDefinition<State, Model> stateMachine = StateMachineDefinitionBuilder.<State, Model> create(State.A)
+                .add(state(State.A).trigger(c -> {
+                    try {
+                        barrier.await(5, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new GameException("Matches are not running concurrently", e);
+                    }
+                    Map<String, Double> scores = new HashMap<>();
+                    c.getPlayersConnector().forEach((name, p) -> scores.put(name, (double) p.getValue()));
+                    c.setScores(scores);
+                })).build();
+        Properties properties = new Properties();
+        properties.setProperty("timeout.getValue", "1000");
+        GameController<PlayerStrategy> controller = new GameControllerBase<>(PlayerStrategy.class, stateMachine, Model::new, properties, new ConnectorAdapterBuilderBase());
+        List<Map<String, PlayerStrategy>> matches = new ArrayList<>();
+        for (int i = 0; i < MATCHES; i++) {
+            final int value = i;
+            matches.add(Collections.singletonMap("player", () -> value));
+        }
+
+        try (GameRunner<PlayerStrategy> runner = new GameRunner<>(controller, MATCHES)) {
+            List<Double> result = runner.playAll(matches).map(s -> s.get("player")).collect(Collectors.toList());
+
+            assertEquals(List.of(0d, 1d, 2d, 3d), result);
+        }
+    }
+
+    @Test
+    public void testSubmitSessions() throws Exception {
+        PlayerSession<PlayerStrategy> sessionMock = mock(PlayerSession.class);
+        PlayerStrategy player = () -> 1;
+        given(sessionMock.getName()).willReturn("player");
+        given(sessionMock.getPlayer()).willReturn(player);
+        GameController<PlayerStrategy> controller = players -> {
+            then(sessionMock).should().startMatch(anyString());
+            then(sessionMock).should(never()).endMatch(anyString());
+            return Collections.singletonMap("player", (double) players.get("player").getValue());
+        };
+
+        try (GameRunner<PlayerStrategy> runner = new GameRunner<>(controller, 1)) {
+            Map<String, Double> result = runner.submitSessions(List.of(sessionMock)).get(5, TimeUnit.SECONDS);
+
+            assertEquals(1d, result.get("player"));
+            ArgumentCaptor<String> match = ArgumentCaptor.forClass(String.class);
+            then(sessionMock).should().startMatch(match.capture());
+            then(sessionMock).should().endMatch(match.getValue());
+        }
+    }
+
+    @Test
+    public void testPlayAllError() {
+        GameController<PlayerStrategy> controller = players -> {
+            throw new GameException("error");
+        };
+
+        try (GameRunner<PlayerStrategy> runner = new GameRunner<>(controller, 1)) {
+            List<Map<String, PlayerStrategy>> matches = List.of(Collections.singletonMap("player", () -> 0));
+
+            assertThrows(GameException.class, () -> runner.playAll(matches).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testConstructorError() {
+        GameController<PlayerStrategy> controller = players -> null;
+
+        assertThrows(IllegalArgumentException.class, () -> new GameRunner<>(controller, 0));
+    }
+
+    private static StateTriggerBuilder<State, Model> state(State state) {
+        return StateTriggerBuilder.<State, Model> state(state);
+    }
+
+    @Timeout("timeout.getValue")
+    public interface PlayerStrategy {
+
+        public int getValue();
+    }
+
+    public static class Model extends GameContext<PlayerStrategy> {
+    }
+
+    public enum State {
+        A
+    }
+}
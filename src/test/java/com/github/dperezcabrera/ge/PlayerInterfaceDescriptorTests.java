@@ -0,0 +1,105 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge;
+
+import com.github.dperezcabrera.ge.PlayerInterfaceDescriptor.MethodDescriptor;
+import com.github.dperezcabrera.ge.annotations.Command;
+import com.github.dperezcabrera.ge.annotations.Timeout;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class PlayerInterfaceDescriptorTests {
+
+    @Test
+    public void testOfIsCached() {
+        assertSame(PlayerInterfaceDescriptor.of(PlayerStrategy.class), PlayerInterfaceDescriptor.of(PlayerStrategy.class));
+    }
+
+    @Test
+    public void testMethods() throws NoSuchMethodException {
+        PlayerInterfaceDescriptor<PlayerStrategy> instance = PlayerInterfaceDescriptor.of(PlayerStrategy.class);
+
+        MethodDescriptor result = instance.getMethod(PlayerStrategy.class.getMethod("getRandom", Integer.class));
+
+        assertEquals("rnd", result.getCommandName());
+        assertEquals("timeout.getRandom", result.getTimeoutProperty());
+        assertEquals(0, result.getDefaultValue());
+        assertSame(result, instance.getCommand("rnd"));
+        assertSame(result, instance.getMethod(result.getId()));
+        assertEquals("[notify, rnd, total]", instance.getMethods().stream().map(MethodDescriptor::getCommandName).collect(Collectors.toList()).toString());
+    }
+
+    @Test
+    public void testResolveTimeouts() throws NoSuchMethodException {
+        Properties properties = new Properties();
+        properties.setProperty("timeout.getRandom", "200");
+
+        Map<Method, Long> result = PlayerInterfaceDescriptor.of(PlayerStrategy.class).resolveTimeouts(properties);
+
+        assertEquals(200L, result.get(PlayerStrategy.class.getMethod("getRandom", Integer.class)));
+        assertNull(result.get(PlayerStrategy.class.getMethod("notify", String.class)));
+        assertNull(result.get(PlayerStrategy.class.getMethod("total")));
+    }
+
+    @Test
+    public void testResolveTimeoutsError() {
+        Properties properties = new Properties();
+        properties.setProperty("timeout.getRandom", "..");
+
+        PlayerInterfaceDescriptor<PlayerStrategy> instance = PlayerInterfaceDescriptor.of(PlayerStrategy.class);
+
+        assertThrows(GameException.class, () -> instance.resolveTimeouts(properties));
+    }
+
+    @Test
+    public void testCheckCommandNames() {
+        PlayerInterfaceDescriptor<DuplicatedCommand> instance = PlayerInterfaceDescriptor.of(DuplicatedCommand.class);
+
+        assertThrows(GameException.class, instance::checkCommandNames);
+    }
+
+    public interface PlayerStrategy {
+
+        @Timeout("timeout.getRandom")
+        @Command(name = "rnd")
+        public int getRandom(Integer size);
+
+        public void notify(String message);
+
+        public Long total();
+    }
+
+    public interface DuplicatedCommand {
+
+        @Command(name = "a")
+        public void first();
+
+        @Command(name = "a")
+        public void second();
+    }
+}
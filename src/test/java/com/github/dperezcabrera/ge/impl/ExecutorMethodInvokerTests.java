@@ -0,0 +1,231 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.impl;
+
+import com.github.dperezcabrera.ge.ConnectorAdapterBuilderBase;
+import com.github.dperezcabrera.ge.GameException;
+import com.github.dperezcabrera.ge.MethodInvoker;
+import com.github.dperezcabrera.ge.io.BinarySerializer;
+import com.github.dperezcabrera.ge.io.IOConnector;
+import com.github.dperezcabrera.ge.io.IOConnectorBase;
+import com.github.dperezcabrera.ge.io.IOMethodInvoker;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class ExecutorMethodInvokerTests {
+
+    ExecutorService executor = Executors.newCachedThreadPool();
+    Map<Method, Long> timeouts = new HashMap<>();
+    Method getValue;
+
+    @BeforeEach
+    public void prepareTest() throws NoSuchMethodException {
+        getValue = PlayerStrategy.class.getMethod("getValue", int.class);
+        timeouts.put(getValue, 200L);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCall() {
+        ExecutorMethodInvoker instance = new ExecutorMethodInvoker((PlayerStrategy) v -> v + 1, executor, timeouts);
+
+        Object result = instance.call(getValue, new Object[]{1});
+
+        assertEquals(2, result);
+    }
+
+    @Test
+    public void testCallError() {
+        ExecutorMethodInvoker instance = new ExecutorMethodInvoker((PlayerStrategy) v -> {
+            throw new IllegalStateException();
+        }, executor, timeouts);
+
+        assertThrows(GameException.class, () -> instance.call(getValue, new Object[]{1}));
+    }
+
+    @Test
+    public void testCallTimeout() {
+        CountDownLatch latch = new CountDownLatch(1);
+        ExecutorMethodInvoker instance = new ExecutorMethodInvoker((PlayerStrategy) v -> {
+            latch.await();
+            return v;
+        }, executor, timeouts);
+
+        GameException result = assertThrows(GameException.class, () -> instance.call(getValue, new Object[]{1}));
+
+        latch.countDown();
+        assertEquals("TimeOut error in method " + getValue, result.getMessage());
+    }
+
+    @Test
+    public void testCallWithZeroTimeoutWaitsForever() {
+        timeouts.put(getValue, 0L);
+        ExecutorMethodInvoker instance = new ExecutorMethodInvoker((PlayerStrategy) v -> {
+            Thread.sleep(100);
+            return v + 1;
+        }, executor, timeouts);
+
+        Object result = instance.call(getValue, new Object[]{1});
+
+        assertEquals(2, result);
+    }
+
+    @Test
+    public void testCallAsyncOverlaps() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        PlayerStrategy player = v -> {
+            latch.countDown();
+            latch.await(1, TimeUnit.SECONDS);
+            return (int) latch.getCount();
+        };
+        ExecutorMethodInvoker instance0 = new ExecutorMethodInvoker(player, executor, timeouts);
+        ExecutorMethodInvoker instance1 = new ExecutorMethodInvoker(player, executor, timeouts);
+
+        CompletableFuture<Object> result0 = instance0.callAsync(getValue, new Object[]{0}).toCompletableFuture();
+        CompletableFuture<Object> result1 = instance1.callAsync(getValue, new Object[]{1}).toCompletableFuture();
+
+        assertEquals(0, result0.get());
+        assertEquals(0, result1.get());
+    }
+
+    @Test
+    public void testCallToDisconnectedPlayerFailsFast() {
+        MethodInvoker connectionMock = mock(MethodInvoker.class);
+        given(connectionMock.isClosed()).willReturn(true);
+        PlayerStrategy player = new ConnectorAdapterBuilderBase().connector(PlayerStrategy.class, connectionMock, timeouts);
+        ExecutorMethodInvoker instance = new ExecutorMethodInvoker(player, executor, timeouts);
+
+        GameException result = assertThrows(GameException.class, () -> instance.call(getValue, new Object[]{1}));
+
+        assertEquals("Player disconnected in method " + getValue, result.getMessage());
+        then(connectionMock).should(never()).callAsync(any(), any());
+    }
+
+    @Test
+    public void testRemoteCallTimeoutForgetsTheCall() throws InterruptedException {
+        IOConnector connectorMock = mock(IOConnector.class);
+        given(connectorMock.subscribe(any(), any())).willReturn(true);
+        IOMethodInvoker connection = new IOMethodInvoker(connectorMock, new BinarySerializer(PlayerStrategy.class));
+        PlayerStrategy player = new ConnectorAdapterBuilderBase().connector(PlayerStrategy.class, connection, timeouts);
+        ExecutorMethodInvoker instance = new ExecutorMethodInvoker(player, executor, timeouts);
+
+        GameException result = assertThrows(GameException.class, () -> instance.call(getValue, new Object[]{1}));
+
+        assertEquals("TimeOut error in method " + getValue, result.getMessage());
+        long deadline = System.currentTimeMillis() + 1000;
+        while (connection.getPendingCalls() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, connection.getPendingCalls());
+    }
+
+    @Test
+    public void testRemoteCallAfterAsyncCallKeepsOrder() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                Socket client = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+                Socket server = serverSocket.accept()) {
+            Method onMove = RemotePlayer.class.getMethod("onMove", int.class);
+            Method getMove = RemotePlayer.class.getMethod("getMove");
+            timeouts.put(getMove, 2000L);
+            BinarySerializer serializer = new BinarySerializer(RemotePlayer.class);
+            IOMethodInvoker peer = new IOMethodInvoker(new IOConnectorBase(client), serializer);
+            List<String> received = Collections.synchronizedList(new ArrayList<>());
+            RemotePlayer remote = new RemotePlayer() {
+                @Override
+                public void onMove(int move) {
+                    received.add("onMove");
+                }
+
+                @Override
+                public int getMove() {
+                    received.add("getMove");
+                    return 1;
+                }
+            };
+            executor.execute(() -> {
+                while (peer.readCommand(new LocalMethodInvoker(remote))) {
+                    // answering
+                }
+            });
+            IOMethodInvoker connection = new IOMethodInvoker(new IOConnectorBase(server), serializer);
+            RemotePlayer player = new ConnectorAdapterBuilderBase().connector(RemotePlayer.class, connection, timeouts);
+            ExecutorService playerExecutor = Executors.newSingleThreadExecutor();
+            CountDownLatch busy = new CountDownLatch(1);
+            playerExecutor.execute(() -> {
+                try {
+                    busy.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            ExecutorMethodInvoker instance = new ExecutorMethodInvoker(player, playerExecutor, timeouts);
+
+            instance.asyncCall(onMove, new Object[]{1});
+            CompletableFuture<Object> result = instance.callAsync(getMove, new Object[0]).toCompletableFuture();
+            busy.countDown();
+
+            assertEquals(1, result.get(1, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList("onMove", "getMove"), received);
+            playerExecutor.shutdown();
+            connection.exit();
+        }
+    }
+
+    public interface RemotePlayer {
+
+        void onMove(int move);
+
+        int getMove();
+    }
+
+    @FunctionalInterface
+    public interface PlayerStrategy {
+
+        public int getValue(int value) throws InterruptedException;
+    }
+}
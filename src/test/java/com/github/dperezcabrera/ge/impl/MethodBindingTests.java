@@ -0,0 +1,94 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.impl;
+
+import java.lang.reflect.Method;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class MethodBindingTests {
+
+    @Test
+    public void testInvokePublicImplementation() throws Throwable {
+        Method method = PlayerStrategy.class.getMethod("add", int.class, Integer.class);
+
+        Object result = MethodBinding.invoke(new PlayerStrategyImpl(), method, new Object[]{1, 2});
+
+        assertEquals(3, result);
+    }
+
+    @Test
+    public void testInvokeLambda() throws Throwable {
+        Method method = Named.class.getMethod("getName");
+        Named target = () -> "name";
+
+        Object result = MethodBinding.invoke(target, method, null);
+
+        assertEquals("name", result);
+    }
+
+    @Test
+    public void testInvokeVoid() throws Throwable {
+        Method method = PlayerStrategy.class.getMethod("reset");
+
+        Object result = MethodBinding.invoke(new PlayerStrategyImpl(), method, new Object[0]);
+
+        assertNull(result);
+    }
+
+    @Test
+    public void testInvokeException() throws NoSuchMethodException {
+        Method method = PlayerStrategy.class.getMethod("add", int.class, Integer.class);
+
+        assertThrows(ArithmeticException.class, () -> MethodBinding.invoke(new PlayerStrategyImpl(), method, new Object[]{0, null}));
+        assertThrows(NullPointerException.class, () -> MethodBinding.invoke(new PlayerStrategyImpl(), method, new Object[]{null, 1}));
+    }
+
+    public interface PlayerStrategy {
+
+        public int add(int a, Integer b);
+
+        public void reset();
+    }
+
+    interface Named {
+
+        public String getName();
+    }
+
+    public static class PlayerStrategyImpl implements PlayerStrategy {
+
+        @Override
+        public int add(int a, Integer b) {
+            if (b == null) {
+                throw new ArithmeticException();
+            }
+            return a + b;
+        }
+
+        @Override
+        public void reset() {
+            // nothing to reset
+        }
+    }
+}
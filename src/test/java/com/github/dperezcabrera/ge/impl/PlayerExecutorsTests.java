@@ -0,0 +1,107 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.impl;
+
+import com.github.dperezcabrera.ge.GameException;
+import com.github.dperezcabrera.ge.PlayerExecutorFactory.PlayerExecutor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class PlayerExecutorsTests {
+
+    private static final int TASKS = 1000;
+
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSharedPoolKeepsOrder() throws InterruptedException {
+        List<Integer> result = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(TASKS);
+        PlayerExecutor executor = PlayerExecutors.sharedPool(pool).create("player");
+
+        for (int i = 0; i < TASKS; i++) {
+            final int value = i;
+            executor.execute(() -> {
+                result.add(value);
+                latch.countDown();
+            });
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < TASKS; i++) {
+            assertEquals(i, result.get(i));
+        }
+    }
+
+    @Test
+    public void testSharedPoolGoesOnAfterAnError() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        PlayerExecutor executor = PlayerExecutors.sharedPool(pool).create("player");
+
+        executor.execute(() -> {
+            throw new StackOverflowError();
+        });
+        executor.execute(latch::countDown);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        CountDownLatch after = new CountDownLatch(1);
+        executor.execute(after::countDown);
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSharedPoolClosed() {
+        PlayerExecutor executor = PlayerExecutors.sharedPool(pool).create("player");
+
+        executor.close();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+        }));
+    }
+
+    @Test
+    public void testVirtualThreads() throws InterruptedException {
+        if (PlayerExecutors.isVirtualThreadsSupported()) {
+            CountDownLatch latch = new CountDownLatch(1);
+            PlayerExecutors.virtualThreads().create("player").execute(latch::countDown);
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } else {
+            assertThrows(GameException.class, PlayerExecutors::virtualThreads);
+        }
+    }
+}
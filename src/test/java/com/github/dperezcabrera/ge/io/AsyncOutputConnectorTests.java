@@ -0,0 +1,166 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import com.github.dperezcabrera.ge.io.AsyncOutputConnector.OverflowPolicy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class AsyncOutputConnectorTests {
+
+    SlowOutputStream outStream = new SlowOutputStream();
+
+    @Test
+    public void testSendInOrder() throws InterruptedException {
+        outStream.release.countDown();
+        AsyncOutputConnector instance = new AsyncOutputConnector(outStream);
+
+        for (int i = 0; i < 100; i++) {
+            instance.send(event(i));
+        }
+        instance.close();
+
+        assertTrue(instance.awaitTermination(5000));
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            expected.append(i).append(';');
+        }
+        assertEquals(expected.toString(), outStream.content());
+        assertEquals(100, instance.getWrittenEvents());
+        assertEquals(0, instance.getDroppedEvents());
+        assertTrue(outStream.closed);
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        AsyncOutputConnector instance = fill(OverflowPolicy.DROP_OLDEST);
+
+        instance.send(event(4));
+
+        assertEquals(1, instance.getDroppedEvents());
+        assertEquals("1;3;4;", finish(instance));
+    }
+
+    @Test
+    public void testDropNewest() throws InterruptedException {
+        AsyncOutputConnector instance = fill(OverflowPolicy.DROP_NEWEST);
+
+        instance.send(event(4));
+
+        assertEquals(1, instance.getDroppedEvents());
+        assertEquals("1;2;3;", finish(instance));
+    }
+
+    @Test
+    public void testDisconnect() throws InterruptedException {
+        AsyncOutputConnector instance = fill(OverflowPolicy.DISCONNECT);
+
+        instance.send(event(4));
+
+        assertTrue(instance.isClosed());
+        assertEquals(3, instance.getDroppedEvents());
+        assertEquals(0, instance.getQueueDepth());
+        assertEquals("1;", finish(instance));
+    }
+
+    @Test
+    public void testBlock() throws InterruptedException {
+        AsyncOutputConnector instance = fill(OverflowPolicy.BLOCK);
+        Thread sender = new Thread(() -> instance.send(event(4)));
+        sender.start();
+
+        sender.join(100);
+
+        assertTrue(sender.isAlive());
+        assertEquals(2, instance.getQueueDepth());
+        outStream.release.countDown();
+        sender.join(5000);
+        assertFalse(sender.isAlive());
+        assertEquals(0, instance.getDroppedEvents());
+        assertEquals("1;2;3;4;", finish(instance));
+    }
+
+    private AsyncOutputConnector fill(OverflowPolicy policy) throws InterruptedException {
+        AsyncOutputConnector instance = new AsyncOutputConnector(outStream, 2, policy);
+        instance.send(event(1));
+        assertTrue(outStream.writing.await(5, TimeUnit.SECONDS));
+        instance.send(event(2));
+        instance.send(event(3));
+        assertEquals(2, instance.getQueueDepth());
+        return instance;
+    }
+
+    private String finish(AsyncOutputConnector instance) throws InterruptedException {
+        outStream.release.countDown();
+        instance.close();
+        assertTrue(instance.awaitTermination(5000));
+        return outStream.content();
+    }
+
+    private static GameEvent event(int i) {
+        return new GameEvent("e", i + ";");
+    }
+
+    private static class SlowOutputStream extends OutputStream {
+
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean closed = false;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+            synchronized (written) {
+                written.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        String content() {
+            synchronized (written) {
+                return new String(written.toByteArray(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class BinarySerializerTests {
+
+    BinarySerializer instance = new BinarySerializer(PlayerStrategy.class);
+
+    @Test
+    public void testPrimitives() throws NoSuchMethodException {
+        Method method = PlayerStrategy.class.getMethod("primitives", boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class);
+        Object[] parameters = {true, (byte) -3, 'ñ', (short) -300, Integer.MIN_VALUE, Long.MAX_VALUE, 1.5f, -2.25d};
+
+        MethodCall result = instance.deserialize(instance.serialize(new MethodCall(method, parameters, null)));
+
+        assertEquals(method, result.getMethod());
+        assertArrayEquals(parameters, result.getParameters());
+    }
+
+    @Test
+    public void testObjects() throws NoSuchMethodException {
+        Method method = PlayerStrategy.class.getMethod("objects", String.class, Integer.class, Color.class, int[].class, List.class, Set.class, Map.class, Position.class);
+        Map<Integer, String> map = new HashMap<>();
+        map.put(1, "one");
+        map.put(-2, null);
+        Set<Color> set = new LinkedHashSet<>(Arrays.asList(Color.BLUE, Color.RED));
+        Object[] parameters = {"text ✓", null, Color.BLUE, new int[]{1, -1, 300}, Arrays.asList("a", null, "c"), set, map, new Position(3, 4)};
+
+        MethodCall result = instance.deserialize(instance.serialize(new MethodCall(method, parameters, null)));
+
+        assertEquals("text ✓", result.getParameters()[0]);
+        assertNull(result.getParameters()[1]);
+        assertEquals(Color.BLUE, result.getParameters()[2]);
+        assertArrayEquals(new int[]{1, -1, 300}, (int[]) result.getParameters()[3]);
+        assertEquals(parameters[4], result.getParameters()[4]);
+        assertEquals(set, result.getParameters()[5]);
+        assertEquals(map, result.getParameters()[6]);
+        assertEquals(new Position(3, 4), result.getParameters()[7]);
+    }
+
+    @Test
+    public void testResponse() throws NoSuchMethodException {
+        Method method = PlayerStrategy.class.getMethod("getRandom", int.class);
+
+        MethodCall result = instance.deserialize(instance.serialize(new MethodCall(method, null, 7)));
+
+        assertEquals(method, result.getMethod());
+        assertNull(result.getParameters());
+        assertEquals(7, result.getResponse());
+    }
+
+    @Test
+    public void testVoidResponse() throws NoSuchMethodException {
+        Method method = PlayerStrategy.class.getMethod("notify", String.class);
+
+        MethodCall result = instance.deserialize(instance.serialize(new MethodCall(method, null, null)));
+
+        assertEquals(method, result.getMethod());
+        assertNull(result.getResponse());
+    }
+
+    @Test
+    public void testSmallerThanJson() throws NoSuchMethodException {
+        Method method = PlayerStrategy.class.getMethod("getRandom", int.class);
+        MethodCall call = new MethodCall(method, new Object[]{3}, null);
+
+        assertTrue(instance.serialize(call).length < new JsonSerializer(PlayerStrategy.class).serialize(call).length);
+    }
+
+    @Test
+    public void testMalformed() {
+        assertThrows(IOGameException.class, () -> instance.deserialize(new byte[]{(byte) 0xFF}));
+    }
+
+    public enum Color {
+        RED, BLUE
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Position {
+
+        private int x;
+        private int y;
+    }
+
+    public interface PlayerStrategy {
+
+        public void primitives(boolean a, byte b, char c, short d, int e, long f, float g, double h);
+
+        public void objects(String a, Integer b, Color c, int[] d, List<String> e, Set<Color> f, Map<Integer, String> g, Position h);
+
+        public int getRandom(int size);
+
+        public void notify(String message);
+    }
+}
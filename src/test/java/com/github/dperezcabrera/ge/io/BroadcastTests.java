@@ -0,0 +1,87 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class BroadcastTests {
+
+    GameEvent event = new GameEvent("A", payload());
+
+    @Test
+    public void testFrameSharedByFormat() {
+        Broadcast instance = new Broadcast(event);
+        FrameCodec first = new FrameCodec();
+        FrameCodec second = new FrameCodec();
+        FrameCodec third = new FrameCodec();
+        third.setVersion(FrameCodec.VERSION_2);
+
+        assertSame(instance.frame(first), instance.frame(second));
+        assertNotSame(instance.frame(first), instance.frame(third));
+    }
+
+    @Test
+    public void testSend() throws IOException {
+        Broadcast instance = new Broadcast(event);
+        ByteArrayOutputStream[] outputs = new ByteArrayOutputStream[3];
+        IOConnectorBase[] connectors = new IOConnectorBase[3];
+        for (int i = 0; i < connectors.length; i++) {
+            outputs[i] = new ByteArrayOutputStream();
+            connectors[i] = new IOConnectorBase(new ByteArrayInputStream(new byte[0]), outputs[i]);
+        }
+        connectors[1].setFrameVersion(FrameCodec.VERSION_2);
+        connectors[2].setFrameVersion(FrameCodec.VERSION_2);
+        connectors[2].setCompressionThreshold(64);
+
+        instance.send(Arrays.asList(connectors));
+
+        assertEquals(event, new FrameCodec().read(new ByteArrayInputStream(outputs[0].toByteArray())));
+        assertEquals(event, new FrameCodec().read(new ByteArrayInputStream(outputs[1].toByteArray())));
+        assertEquals(event, new FrameCodec().read(new ByteArrayInputStream(outputs[2].toByteArray())));
+        assertEquals(outputs[0].size(), outputs[1].size() - 3);
+        assertEquals(true, outputs[2].size() < outputs[1].size());
+    }
+
+    @Test
+    public void testSendMatchesEncodedEvent() {
+        ByteArrayOutputStream shared = new ByteArrayOutputStream();
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+
+        new IOConnectorBase(new ByteArrayInputStream(new byte[0]), shared).send(new Broadcast(event));
+        new IOConnectorBase(new ByteArrayInputStream(new byte[0]), single).send(event);
+
+        assertArrayEquals(single.toByteArray(), shared.toByteArray());
+    }
+
+    private static byte[] payload() {
+        byte[] result = new byte[1024];
+        Arrays.fill(result, (byte) 'x');
+        return result;
+    }
+}
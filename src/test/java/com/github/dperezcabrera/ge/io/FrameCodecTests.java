@@ -0,0 +1,185 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class FrameCodecTests {
+
+    FrameCodec instance = new FrameCodec();
+
+    @Test
+    public void testWriteRead() throws IOException {
+        GameEvent first = new GameEvent("first", new byte[]{0, 1, 2});
+        GameEvent second = new GameEvent("second", "message");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        instance.write(out, first);
+        instance.write(out, second);
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+
+        assertEquals(first, instance.read(in));
+        assertEquals(second, instance.read(in));
+        assertFalse(instance.hasPartialFrame());
+    }
+
+    @Test
+    public void testReadByteByByte() throws IOException {
+        GameEvent event = new GameEvent("command", new byte[20000]);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        instance.write(out, event);
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(out.toByteArray())) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+
+        assertEquals(1, instance.fill(in));
+        assertNull(instance.next());
+        assertTrue(instance.hasPartialFrame());
+        assertEquals(event, instance.read(in));
+    }
+
+    @Test
+    public void testReadEndOfStream() {
+        InputStream in = new ByteArrayInputStream(new byte[]{0, 0});
+
+        assertThrows(EOFException.class, () -> instance.read(in));
+    }
+
+    @Test
+    public void testReadInvalidSize() {
+        InputStream in = new ByteArrayInputStream(ByteBuffer.allocate(8).putInt(-1).array());
+
+        assertThrows(IOException.class, () -> instance.read(in));
+    }
+
+    @Test
+    public void testEncodeMatchesFrame() {
+        GameEvent event = new GameEvent("command", "01234567");
+        ByteBuffer[] buffers = instance.encode(event);
+        ByteBuffer result = ByteBuffer.allocate(buffers[0].remaining() + buffers[1].remaining());
+        result.put(buffers[0]).put(buffers[1]);
+        byte[] frame = event.toFrame();
+
+        assertEquals(frame.length, ByteBuffer.wrap(result.array()).getInt());
+        assertArrayEquals(frame, Arrays.copyOfRange(result.array(), FrameCodec.HEADER_SIZE, result.capacity()));
+    }
+
+    @Test
+    public void testVersion2AcceptsBothVersions() throws IOException {
+        GameEvent first = new GameEvent("first ✓", new byte[]{':', 2, 0});
+        GameEvent second = new GameEvent("second", "message");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        instance.setVersion(FrameCodec.VERSION_2);
+        instance.write(out, first);
+        instance.setVersion(FrameCodec.VERSION_1);
+        instance.write(out, second);
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+
+        assertEquals(first, instance.read(in));
+        assertEquals(second, instance.read(in));
+    }
+
+    @Test
+    public void testVersion2Encode() throws IOException {
+        GameEvent event = new GameEvent("command", "01234567");
+        instance.setVersion(FrameCodec.VERSION_2);
+        ByteBuffer[] buffers = instance.encode(event);
+        ByteBuffer frame = ByteBuffer.allocate(buffers[0].remaining() + buffers[1].remaining());
+        frame.put(buffers[0]).put(buffers[1]);
+
+        GameEvent result = new FrameCodec().read(new ByteArrayInputStream(frame.array()));
+
+        assertEquals(event, result);
+        assertTrue(result.getPayloadBuffer().isReadOnly());
+        assertEquals(8, result.getPayloadBuffer().remaining());
+    }
+
+    @Test
+    public void testUnsupportedVersion() {
+        assertThrows(IOGameException.class, () -> instance.setVersion(3));
+    }
+
+    @Test
+    public void testCompression() throws IOException {
+        byte[] payload = new byte[10000];
+        Arrays.fill(payload, (byte) 'x');
+        GameEvent large = new GameEvent("large", payload);
+        GameEvent small = new GameEvent("small", "message");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        instance.setVersion(FrameCodec.VERSION_2);
+        instance.setCompressionThreshold(1024);
+        instance.write(out, large);
+        instance.write(out, small);
+        instance.write(out, large);
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+
+        assertTrue(out.size() < payload.length);
+        FrameCodec reader = new FrameCodec();
+        assertEquals(large, reader.read(in));
+        assertEquals(small, reader.read(in));
+        assertEquals(large, reader.read(in));
+    }
+
+    @Test
+    public void testEnd() throws IOException {
+        byte[] payload = new byte[10000];
+        Arrays.fill(payload, (byte) 'x');
+        GameEvent large = new GameEvent("large", payload);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        instance.setVersion(FrameCodec.VERSION_2);
+        instance.setCompressionThreshold(1024);
+        instance.write(compressed, large);
+
+        instance.end();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        instance.write(out, large);
+
+        assertTrue(out.size() > payload.length);
+        assertEquals(large, new FrameCodec().read(new ByteArrayInputStream(out.toByteArray())));
+        assertThrows(IOException.class, () -> instance.read(new ByteArrayInputStream(compressed.toByteArray())));
+    }
+
+    @Test
+    public void testCompressionOnlyInVersion2() throws IOException {
+        GameEvent event = new GameEvent("large", new byte[4096]);
+        instance.setCompressionThreshold(1024);
+
+        ByteBuffer[] buffers = instance.encode(event);
+
+        assertEquals(4096, buffers[1].remaining());
+    }
+}
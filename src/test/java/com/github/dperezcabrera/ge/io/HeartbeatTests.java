@@ -0,0 +1,174 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import com.github.dperezcabrera.ge.impl.LocalMethodInvoker;
+import com.github.dperezcabrera.ge.util.Futures;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class HeartbeatTests {
+
+    private static final long CALL_TIMEOUT = 5000;
+    private static final long INTERVAL = 50;
+    private static final long TIMEOUT = 300;
+
+    Serializer<MethodCall, byte[]> serializer = new BinarySerializer(PlayerStrategy.class);
+    ServerSocket serverSocket;
+    Socket client;
+    Socket server;
+    ExecutorService executor = Executors.newCachedThreadPool();
+    Method getValue;
+
+    @BeforeEach
+    public void prepareTest() throws IOException, NoSuchMethodException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        client = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        server = serverSocket.accept();
+        getValue = PlayerStrategy.class.getMethod("getValue", int.class);
+    }
+
+    @AfterEach
+    public void cleanTest() throws IOException {
+        executor.shutdownNow();
+        client.close();
+        server.close();
+        serverSocket.close();
+    }
+
+    @Test
+    public void testSilentPeerDroppedBeforeCallTimeout() throws IOException {
+        IOMethodInvoker session = new IOMethodInvoker(new IOConnectorBase(server), serializer);
+        try (Heartbeat instance = new Heartbeat(INTERVAL, TIMEOUT)) {
+            instance.watch(session);
+            long start = System.currentTimeMillis();
+            CompletableFuture<Object> result = Futures.withTimeout(session.callAsync(getValue, new Object[]{1}).toCompletableFuture(),
+                    CALL_TIMEOUT, () -> new IOGameException("TimeOut"));
+
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> result.get(CALL_TIMEOUT * 2, TimeUnit.MILLISECONDS));
+
+            assertTrue(System.currentTimeMillis() - start < CALL_TIMEOUT, "waited for the call timeout");
+            assertTrue(ex.getCause().getMessage().startsWith("Connection closed"), ex.getCause().getMessage());
+            assertTrue(session.isClosed());
+            assertEquals(1, instance.getDeadSessions());
+        }
+    }
+
+    @Test
+    public void testBusyPeerAnswersPings() throws Exception {
+        IOMethodInvoker session = new IOMethodInvoker(new IOConnectorBase(server), serializer);
+        IOMethodInvoker peer = new IOMethodInvoker(new IOConnectorBase(client), serializer);
+        peer.setCallExecutor(executor);
+        PlayerStrategy player = v -> {
+            Thread.sleep(TIMEOUT * 3);
+            return v + 1;
+        };
+        executor.execute(() -> {
+            while (peer.readCommand(new LocalMethodInvoker(player))) {
+                // answering
+            }
+        });
+        try (Heartbeat instance = new Heartbeat(INTERVAL, TIMEOUT)) {
+            instance.watch(session);
+
+            Object result = session.callAsync(getValue, new Object[]{1}).toCompletableFuture().get(CALL_TIMEOUT, TimeUnit.MILLISECONDS);
+
+            assertEquals(2, result);
+            assertFalse(session.isClosed());
+            assertEquals(0, instance.getDeadSessions());
+        }
+    }
+
+    @Test
+    public void testSilentSessionDisconnected() {
+        IOMethodInvoker sessionMock = mock(IOMethodInvoker.class);
+        try (Heartbeat instance = new Heartbeat(20, 200)) {
+            instance.watch(sessionMock);
+
+            then(sessionMock).should(timeout(1000).atLeastOnce()).ping();
+            then(sessionMock).should(timeout(1000)).disconnect();
+
+            assertEquals(1, instance.getDeadSessions());
+            assertEquals(0, instance.getSessions());
+        }
+    }
+
+    @Test
+    public void testActiveSessionNotPinged() throws InterruptedException {
+        IOMethodInvoker sessionMock = mock(IOMethodInvoker.class);
+        given(sessionMock.getLastActivity()).willAnswer(i -> System.currentTimeMillis());
+        try (Heartbeat instance = new Heartbeat(50, 200)) {
+            instance.watch(sessionMock);
+
+            Thread.sleep(150);
+
+            then(sessionMock).should(atLeastOnce()).getLastActivity();
+            then(sessionMock).should(never()).ping();
+            then(sessionMock).should(never()).disconnect();
+        }
+    }
+
+    @Test
+    public void testClosedSessionForgotten() {
+        IOMethodInvoker sessionMock = mock(IOMethodInvoker.class);
+        given(sessionMock.isClosed()).willReturn(true);
+        try (Heartbeat instance = new Heartbeat(10000, 20000)) {
+            instance.watch(sessionMock);
+
+            instance.beat();
+
+            assertEquals(0, instance.getSessions());
+            then(sessionMock).should(never()).disconnect();
+        }
+    }
+
+    @Test
+    public void testTimeoutLongerThanInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new Heartbeat(100, 100));
+    }
+
+    @FunctionalInterface
+    public interface PlayerStrategy {
+
+        public int getValue(int value) throws InterruptedException;
+    }
+}
@@ -0,0 +1,148 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class IOConnectorBaseTests {
+
+    ServerSocket serverSocket;
+    Socket client;
+    Socket server;
+
+    @BeforeEach
+    public void prepareTest() throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        client = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        server = serverSocket.accept();
+    }
+
+    @AfterEach
+    public void cleanTest() throws IOException {
+        client.close();
+        server.close();
+        serverSocket.close();
+    }
+
+    @Test
+    public void testReceiveTimeoutSocket() throws IOException {
+        IOConnectorBase instance = new IOConnectorBase(server);
+        GameEvent event = new GameEvent("command", "message");
+
+        assertNull(instance.receive(20));
+        new IOConnectorBase(client).send(event);
+
+        assertEquals(event, instance.receive(1000));
+    }
+
+    @Test
+    public void testReceiveTimeoutPartialFrame() throws IOException {
+        IOConnectorBase instance = new IOConnectorBase(server);
+        GameEvent event = new GameEvent("command", "message");
+        byte[] frame = frame(event);
+        OutputStream out = client.getOutputStream();
+
+        out.write(frame, 0, 6);
+        out.flush();
+        assertNull(instance.receive(50));
+        out.write(Arrays.copyOfRange(frame, 6, frame.length));
+        out.flush();
+
+        assertEquals(event, instance.receive(1000));
+        assertEquals(0, server.getSoTimeout());
+    }
+
+    @Test
+    public void testReceiveTimeoutStreams() throws IOException {
+        PipedOutputStream out = new PipedOutputStream();
+        IOConnectorBase instance = new IOConnectorBase(new PipedInputStream(out), new ByteArrayOutputStream());
+        GameEvent first = new GameEvent("first", "message");
+        GameEvent second = new GameEvent("second", "message");
+
+        assertNull(instance.receive(20));
+        out.write(frame(first));
+        out.write(frame(second));
+        out.flush();
+
+        assertEquals(first, instance.receive(1000));
+        assertEquals(second, instance.receive());
+    }
+
+    @Test
+    public void testReceiveZeroTimeoutWaitsForTheEvent() throws IOException, InterruptedException {
+        IOConnectorBase instance = new IOConnectorBase(server);
+        IOConnectorBase peer = new IOConnectorBase(client);
+        GameEvent event = new GameEvent("command", "message");
+        Thread sender = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+                peer.send(event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        sender.start();
+
+        assertEquals(event, instance.receive(0));
+        sender.join();
+    }
+
+    @Test
+    public void testReceiveZeroTimeoutClosed() throws IOException {
+        IOConnectorBase instance = new IOConnectorBase(server);
+        client.close();
+
+        assertNull(instance.receive(0));
+        assertNull(instance.receive(0));
+    }
+
+    @Test
+    public void testReceiveZeroTimeoutStreams() throws IOException {
+        PipedOutputStream out = new PipedOutputStream();
+        IOConnectorBase instance = new IOConnectorBase(new PipedInputStream(out), new ByteArrayOutputStream());
+        GameEvent event = new GameEvent("command", "message");
+
+        assertNull(instance.receive(20));
+        out.write(frame(event));
+        out.flush();
+
+        assertEquals(event, instance.receive(0));
+    }
+
+    private static byte[] frame(GameEvent event) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        new FrameCodec().write(result, event);
+        return result.toByteArray();
+    }
+}
@@ -0,0 +1,325 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import com.github.dperezcabrera.ge.ConnectorAdapterBuilderBase;
+import com.github.dperezcabrera.ge.MethodInvoker;
+import com.github.dperezcabrera.ge.impl.LocalMethodInvoker;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class IOMethodInvokerTests {
+
+    private static final long BATCH_DELAY = 60000;
+
+    Serializer<MethodCall, byte[]> serializer = new JsonSerializer(PlayerStrategy.class);
+    QueueConnector connector = new QueueConnector();
+    Method notify;
+
+    @BeforeEach
+    public void prepareTest() throws NoSuchMethodException {
+        notify = PlayerStrategy.class.getMethod("notify", String.class);
+    }
+
+    @Test
+    public void testBatchBySize() {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer, 3, BATCH_DELAY);
+
+        instance.asyncCall(notify, new Object[]{"a"});
+        instance.asyncCall(notify, new Object[]{"b"});
+        assertEquals(0, connector.sent.size());
+        instance.asyncCall(notify, new Object[]{"c"});
+
+        assertEquals(1, connector.sent.size());
+        assertEquals(IOMethodInvoker.BATCH_CMD, connector.sent.peek().getCommand());
+    }
+
+    @Test
+    public void testBatchByDelay() throws InterruptedException {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer, 100, 20);
+
+        instance.asyncCall(notify, new Object[]{"a"});
+        instance.asyncCall(notify, new Object[]{"b"});
+
+        GameEvent result = connector.sent.poll(1, TimeUnit.SECONDS);
+        assertNotNull(result);
+        assertEquals(IOMethodInvoker.BATCH_CMD, result.getCommand());
+    }
+
+    @Test
+    public void testBatchWithoutDelayRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new IOMethodInvoker(connector, serializer, 3, 0));
+    }
+
+    @Test
+    public void testPreparedCallSerializedOnce() {
+        Serializer<MethodCall, byte[]> serializerSpy = spy(serializer);
+        QueueConnector other = new QueueConnector();
+        IOMethodInvoker first = new IOMethodInvoker(connector, serializerSpy);
+        IOMethodInvoker second = new IOMethodInvoker(other, serializerSpy);
+        PreparedCall call = new PreparedCall(notify, new Object[]{"a"});
+
+        first.asyncCall(call);
+        second.asyncCall(call);
+
+        then(serializerSpy).should(times(1)).serialize(any(MethodCall.class));
+        assertSame(connector.sent.poll().getPayload(), other.sent.poll().getPayload());
+    }
+
+    @Test
+    public void testPreparedCallBatched() {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer, 2, BATCH_DELAY);
+        MethodInvoker targetMock = mock(MethodInvoker.class);
+        instance.asyncCall(new PreparedCall(notify, new Object[]{"a"}));
+        instance.asyncCall(notify, new Object[]{"b"});
+        connector.received.add(connector.sent.poll());
+
+        instance.readCommand(targetMock);
+
+        then(targetMock).should(inOrder(targetMock)).asyncCall(notify, new Object[]{"a"});
+        then(targetMock).should(inOrder(targetMock)).asyncCall(notify, new Object[]{"b"});
+    }
+
+    @Test
+    public void testMatchEvents() {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer);
+        SessionListener listenerMock = mock(SessionListener.class);
+        instance.setSessionListener(listenerMock);
+        instance.startMatch("m1");
+        instance.endMatch("m1");
+        connector.received.add(connector.sent.poll());
+        connector.received.add(connector.sent.poll());
+
+        instance.readCommand(null);
+        instance.readCommand(null);
+
+        then(listenerMock).should(inOrder(listenerMock)).onMatchStart("m1");
+        then(listenerMock).should(inOrder(listenerMock)).onMatchEnd("m1");
+    }
+
+    @Test
+    public void testReadBatch() {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer, 3, BATCH_DELAY);
+        MethodInvoker targetMock = mock(MethodInvoker.class);
+        instance.asyncCall(notify, new Object[]{"a"});
+        instance.asyncCall(notify, new Object[]{"b"});
+        instance.flush();
+        connector.received.add(connector.sent.poll());
+
+        instance.readCommand(targetMock);
+
+        then(targetMock).should(inOrder(targetMock)).asyncCall(notify, new Object[]{"a"});
+        then(targetMock).should(inOrder(targetMock)).asyncCall(notify, new Object[]{"b"});
+    }
+
+    @Test
+    public void testSingleCallIsNotBatched() {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer, 3, BATCH_DELAY);
+
+        instance.asyncCall(notify, new Object[]{"a"});
+        instance.flush();
+
+        assertEquals(IOMethodInvoker.ASYNC_CALL_CMD, connector.sent.peek().getCommand());
+    }
+
+    @Test
+    public void testPipelinedCallsOutOfOrder() throws Exception {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer);
+        Method getValue = PlayerStrategy.class.getMethod("getValue", Integer.class);
+
+        CompletableFuture<Object> first = instance.callAsync(getValue, new Object[]{1}).toCompletableFuture();
+        CompletableFuture<Object> second = instance.callAsync(getValue, new Object[]{2}).toCompletableFuture();
+        GameEvent firstCall = connector.sent.poll(1, TimeUnit.SECONDS);
+        GameEvent secondCall = connector.sent.poll(1, TimeUnit.SECONDS);
+        connector.received.add(new GameEvent("R" + secondCall.getCommand().substring(1), serializer.serialize(new MethodCall(getValue, null, 20))));
+        connector.received.add(new GameEvent("R" + firstCall.getCommand().substring(1), serializer.serialize(new MethodCall(getValue, null, 10))));
+
+        assertEquals(20, second.get(1, TimeUnit.SECONDS));
+        assertEquals(10, first.get(1, TimeUnit.SECONDS));
+        assertEquals(0, instance.getPendingCalls());
+    }
+
+    @Test
+    public void testAnswerCallWithRequestId() throws Exception {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer);
+        Method getValue = PlayerStrategy.class.getMethod("getValue", Integer.class);
+        MethodInvoker targetMock = mock(MethodInvoker.class);
+        given(targetMock.callAsync(getValue, new Object[]{3})).willReturn(CompletableFuture.completedFuture(30));
+        connector.received.add(new GameEvent("C7", serializer.serialize(new MethodCall(getValue, new Object[]{3}, null))));
+
+        instance.readCommand(targetMock);
+
+        GameEvent result = connector.sent.poll(1, TimeUnit.SECONDS);
+        assertEquals("R7", result.getCommand());
+        assertEquals(30, serializer.deserialize(result.getPayload()).getResponse());
+    }
+
+    @Test
+    public void testCancelledCallForgotten() throws Exception {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer);
+        Method getValue = PlayerStrategy.class.getMethod("getValue", Integer.class);
+
+        CompletableFuture<Object> result = instance.callAsync(getValue, new Object[]{1}).toCompletableFuture();
+        assertEquals(1, instance.getPendingCalls());
+        result.cancel(false);
+
+        assertEquals(0, instance.getPendingCalls());
+    }
+
+    @Test
+    public void testErrorAnsweredInUtf8() throws Exception {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer);
+        Method getValue = PlayerStrategy.class.getMethod("getValue", Integer.class);
+        MethodInvoker targetMock = mock(MethodInvoker.class);
+        CompletableFuture<Object> error = new CompletableFuture<>();
+        error.completeExceptionally(new IllegalStateException("señal ✓"));
+        given(targetMock.callAsync(getValue, new Object[]{3})).willReturn(error);
+        connector.received.add(new GameEvent("C7", serializer.serialize(MethodCall.call(getValue, new Object[]{3}))));
+
+        instance.readCommand(targetMock);
+
+        GameEvent result = connector.sent.poll(1, TimeUnit.SECONDS);
+        assertEquals("E7", result.getCommand());
+        assertTrue(new String(result.getPayload(), StandardCharsets.UTF_8).endsWith("señal ✓"));
+    }
+
+    @Test
+    public void testPendingCallsFailOnClose() throws Exception {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer);
+        Method getValue = PlayerStrategy.class.getMethod("getValue", Integer.class);
+
+        CompletableFuture<Object> result = instance.callAsync(getValue, new Object[]{1}).toCompletableFuture();
+        connector.received.add(GameEvent.EXIT);
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertEquals(IOGameException.class, ex.getCause().getClass());
+    }
+
+    @Test
+    public void testPingAnswered() {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer);
+        long before = System.currentTimeMillis();
+        connector.received.add(new GameEvent(IOMethodInvoker.PING_CMD));
+
+        instance.readCommand(null);
+
+        assertEquals(IOMethodInvoker.PONG_CMD, connector.sent.poll().getCommand());
+        assertTrue(instance.getLastActivity() >= before);
+    }
+
+    @Test
+    public void testDisconnectFailsFast() throws Exception {
+        IOMethodInvoker instance = new IOMethodInvoker(connector, serializer);
+        Method getValue = PlayerStrategy.class.getMethod("getValue", Integer.class);
+        CompletableFuture<Object> pending = instance.callAsync(getValue, new Object[]{1}).toCompletableFuture();
+        connector.sent.clear();
+
+        instance.disconnect();
+        instance.asyncCall(notify, new Object[]{"a"});
+        CompletableFuture<Object> late = instance.callAsync(getValue, new Object[]{2}).toCompletableFuture();
+
+        assertTrue(instance.isClosed());
+        assertTrue(pending.isCompletedExceptionally());
+        assertTrue(late.isCompletedExceptionally());
+        assertEquals(0, connector.sent.size());
+    }
+
+    @Test
+    public void testZeroArgumentCallThroughProxy() throws Exception {
+        PlayerStrategy local = mock(PlayerStrategy.class);
+        given(local.getScore()).willReturn(42);
+        Method getScore = PlayerStrategy.class.getMethod("getScore");
+        for (Serializer<MethodCall, byte[]> s : Arrays.asList(serializer, new BinarySerializer(PlayerStrategy.class))) {
+            QueueConnector server = new QueueConnector();
+            QueueConnector peer = new QueueConnector();
+            PlayerStrategy remote = new ConnectorAdapterBuilderBase().connector(PlayerStrategy.class, new IOMethodInvoker(server, s), Collections.singletonMap(getScore, 1000L));
+
+            CompletableFuture<Integer> result = CompletableFuture.supplyAsync(remote::getScore);
+            peer.received.add(server.sent.poll(1, TimeUnit.SECONDS));
+            new IOMethodInvoker(peer, s).readCommand(new LocalMethodInvoker(local));
+            server.received.add(peer.sent.poll(1, TimeUnit.SECONDS));
+
+            assertEquals(42, result.get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    public interface PlayerStrategy {
+
+        public void notify(String message);
+
+        public Integer getValue(Integer value);
+
+        public int getScore();
+    }
+
+    static class QueueConnector implements IOConnector {
+
+        BlockingQueue<GameEvent> sent = new LinkedBlockingQueue<>();
+        BlockingQueue<GameEvent> received = new LinkedBlockingQueue<>();
+        volatile boolean closed = false;
+
+        @Override
+        public void send(GameEvent ge) {
+            sent.add(ge);
+        }
+
+        @Override
+        public GameEvent receive() {
+            try {
+                return received.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOGameException("Interrupted", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+}
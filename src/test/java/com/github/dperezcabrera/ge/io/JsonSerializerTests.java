@@ -0,0 +1,109 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class JsonSerializerTests {
+
+    JsonSerializer instance = new JsonSerializer(PlayerStrategy.class);
+
+    @Test
+    public void testRoundTrip() throws NoSuchMethodException {
+        Method method = PlayerStrategy.class.getMethod("sendResult", Map.class, List.class, String.class, int.class);
+        Map<Integer, String> numbers = new HashMap<>();
+        numbers.put(1, "player-1");
+        Object[] parameters = {numbers, Arrays.asList(1L, 2L), null, 3};
+
+        MethodCall result = instance.deserialize(instance.serialize(new MethodCall(method, parameters, null)));
+
+        assertEquals(method, result.getMethod());
+        assertArrayEquals(parameters, result.getParameters());
+    }
+
+    @Test
+    public void testRoundTripNonAscii() throws NoSuchMethodException {
+        Method method = PlayerStrategy.class.getMethod("sendResult", Map.class, List.class, String.class, int.class);
+        Object[] parameters = {new HashMap<>(), Arrays.asList(1L), "ñandú €", 3};
+
+        byte[] data = instance.serialize(MethodCall.call(method, parameters));
+        MethodCall result = instance.deserialize(data);
+
+        assertArrayEquals(parameters, result.getParameters());
+        assertTrue(new String(data, StandardCharsets.UTF_8).contains("ñandú €"));
+    }
+
+    @Test
+    public void testReadLegacyFormat() throws NoSuchMethodException {
+        Method method = PlayerStrategy.class.getMethod("sendResult", Map.class, List.class, String.class, int.class);
+        byte[] legacy = new GameEvent(" sendResult", "[{\"1\":\"player-1\"}, [1,2], \"winner\", 3]\n").toFrame();
+
+        MethodCall result = instance.deserialize(legacy);
+
+        assertEquals(method, result.getMethod());
+        assertEquals("player-1", ((Map<?, ?>) result.getParameters()[0]).get(1));
+        assertEquals(Arrays.asList(1L, 2L), result.getParameters()[1]);
+        assertEquals("winner", result.getParameters()[2]);
+        assertEquals(3, result.getParameters()[3]);
+    }
+
+    @Test
+    public void testWriteLegacyFormat() throws NoSuchMethodException {
+        Method method = PlayerStrategy.class.getMethod("getRandom", int.class);
+
+        GameEvent result = GameEvent.fromFrame(instance.serialize(new MethodCall(method, null, 5)));
+
+        assertEquals("$getRandom", result.getCommand());
+        JsonElement[] elements = new Gson().fromJson(new String(result.getPayload(), StandardCharsets.UTF_8), JsonElement[].class);
+        assertEquals(5, elements[0].getAsInt());
+    }
+
+    @Test
+    public void testNullResponse() throws NoSuchMethodException {
+        Method method = PlayerStrategy.class.getMethod("getName");
+
+        MethodCall result = instance.deserialize(instance.serialize(new MethodCall(method, null, null)));
+
+        assertNull(result.getResponse());
+        assertNull(result.getParameters());
+    }
+
+    public interface PlayerStrategy {
+
+        public void sendResult(Map<Integer, String> numbers, List<Long> values, String winner, int round);
+
+        public int getRandom(int size);
+
+        public String getName();
+    }
+}
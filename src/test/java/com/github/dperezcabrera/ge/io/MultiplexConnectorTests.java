@@ -0,0 +1,174 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.io;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class MultiplexConnectorTests {
+
+    private static final long TIMEOUT = 2000;
+
+    ServerSocket serverSocket;
+    Socket client;
+    Socket server;
+    ExecutorService executor;
+
+    @BeforeEach
+    public void prepareTest() throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        client = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        server = serverSocket.accept();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void cleanTest() throws IOException {
+        executor.shutdownNow();
+        client.close();
+        server.close();
+        serverSocket.close();
+    }
+
+    @Test
+    public void testChannels() throws IOException, InterruptedException {
+        BlockingQueue<IOConnector> accepted = new LinkedBlockingQueue<>();
+        MultiplexConnector multiplex = MultiplexConnector.connect(new IOConnectorBase(client), executor);
+        IOConnector first = multiplex.open(1);
+        IOConnector second = multiplex.open(2);
+        second.send(new GameEvent("command", "second"));
+        first.send(new GameEvent("command", "first"));
+
+        assertNull(MultiplexConnector.accept(new IOConnectorBase(server), TIMEOUT, accepted::add));
+        IOConnector secondServer = accepted.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        IOConnector firstServer = accepted.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        assertEquals(new GameEvent("command", "second"), secondServer.receive(TIMEOUT));
+        assertEquals(new GameEvent("command", "first"), firstServer.receive(TIMEOUT));
+        firstServer.send(new GameEvent("answer", "first"));
+        assertEquals(new GameEvent("answer", "first"), first.receive(TIMEOUT));
+        assertEquals(2, multiplex.getChannels());
+    }
+
+    @Test
+    public void testSubscribedChannelKeepsOrder() throws IOException, InterruptedException {
+        BlockingQueue<IOConnector> accepted = new LinkedBlockingQueue<>();
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        CountDownLatch closed = new CountDownLatch(1);
+        MultiplexConnector multiplex = MultiplexConnector.connect(new IOConnectorBase(client), executor);
+        IOConnector channel = multiplex.open(7);
+        channel.subscribe(e -> received.add(new String(e.getPayload())), closed::countDown);
+        MultiplexConnector.accept(new IOConnectorBase(server), TIMEOUT, accepted::add);
+        channel.send(new GameEvent("hello"));
+        IOConnector serverChannel = accepted.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertNotNull(serverChannel);
+
+        for (int i = 0; i < 100; i++) {
+            serverChannel.send(new GameEvent("event", Integer.toString(i)));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.toString(i), received.poll(TIMEOUT, TimeUnit.MILLISECONDS));
+        }
+        serverChannel.close();
+
+        assertTrue(closed.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue(channel.isClosed());
+        assertEquals(0, multiplex.getChannels());
+    }
+
+    @Test
+    public void testTooManyChannelsCloseTheConnection() throws IOException, InterruptedException {
+        BlockingQueue<IOConnector> accepted = new LinkedBlockingQueue<>();
+        MultiplexConnector multiplex = MultiplexConnector.connect(new IOConnectorBase(client), executor);
+        for (long id = 1; id <= 3; id++) {
+            multiplex.open(id).send(new GameEvent("login", Long.toString(id)));
+        }
+
+        assertNull(MultiplexConnector.accept(new IOConnectorBase(server), TIMEOUT, 2, accepted::add));
+        IOConnector first = accepted.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        IOConnector second = accepted.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(accepted.poll(100, TimeUnit.MILLISECONDS));
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!multiplex.isClosed() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(multiplex.isClosed());
+        assertTrue(first.isClosed());
+    }
+
+    @Test
+    public void testChannelReceiveZeroTimeoutUntilClosed() throws IOException, InterruptedException {
+        BlockingQueue<IOConnector> accepted = new LinkedBlockingQueue<>();
+        MultiplexConnector multiplex = MultiplexConnector.connect(new IOConnectorBase(client), executor);
+        IOConnector channel = multiplex.open(1);
+        channel.send(new GameEvent("command", "first"));
+        MultiplexConnector.accept(new IOConnectorBase(server), TIMEOUT, accepted::add);
+        IOConnector serverChannel = accepted.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertNotNull(serverChannel);
+
+        channel.close();
+
+        assertEquals(new GameEvent("command", "first"), serverChannel.receive(0));
+        assertNull(serverChannel.receive(0));
+        assertNull(serverChannel.receive(0));
+    }
+
+    @Test
+    public void testAcceptSingleConnection() throws IOException {
+        new IOConnectorBase(client).send(new GameEvent("login", "player"));
+
+        IOConnector result = MultiplexConnector.accept(new IOConnectorBase(server), TIMEOUT, c -> {
+            throw new AssertionError("not multiplexed");
+        });
+
+        assertEquals(new GameEvent("login", "player"), result.receive(TIMEOUT));
+        assertNull(result.receive(20));
+    }
+
+    @Test
+    public void testCloseWhenIdle() throws IOException {
+        MultiplexConnector multiplex = MultiplexConnector.connect(new IOConnectorBase(client), executor);
+        IOConnector channel = multiplex.open(1);
+        multiplex.closeWhenIdle();
+
+        channel.close();
+
+        assertTrue(multiplex.isClosed());
+    }
+}
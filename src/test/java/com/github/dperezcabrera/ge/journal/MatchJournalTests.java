@@ -0,0 +1,238 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.journal;
+
+import com.github.dperezcabrera.ge.ConnectorAdapterBuilderBase;
+import com.github.dperezcabrera.ge.GameContext;
+import com.github.dperezcabrera.ge.GameControllerBase;
+import com.github.dperezcabrera.ge.PlayerResult;
+import com.github.dperezcabrera.ge.impl.PlayerExecutors;
+import com.github.dperezcabrera.ge.io.BinarySerializer;
+import com.github.dperezcabrera.ge.io.MethodCall;
+import com.github.dperezcabrera.ge.st.StateMachineDefinition;
+import com.github.dperezcabrera.ge.st.StateMachineDefinitionBuilder;
+import com.github.dperezcabrera.ge.st.StateMachineDefinitionBuilder.StateTriggerBuilder;
+import com.github.dperezcabrera.ge.st.StateMachineException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static com.github.dperezcabrera.ge.journal.JournalFormat.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class MatchJournalTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testPlayRecordsMatch() throws IOException {
+        MatchJournal journal = new MatchJournal(directory, PlayerStrategy.class, 64);
+        GameControllerBase<PlayerStrategy, State, Model> controller = controller(journal, State.B);
+        Map<String, PlayerStrategy> players = new HashMap<>();
+        players.put("a", n -> n + 1);
+        players.put("b", n -> n * 2);
+
+        Map<String, Double> scores = controller.play(players);
+
+        assertEquals(11d, scores.get("a"));
+        assertEquals(20d, scores.get("b"));
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(singleFile()));
+        assertEquals(MAGIC, in.getInt());
+        assertEquals(VERSION, in.get());
+        assertEquals(PlayerStrategy.class.getName(), getString(in));
+        in.getLong();
+        List<String> names = new ArrayList<>();
+        assertEquals(START, nextRecord(in));
+        for (long i = getVarint(in); i > 0; i--) {
+            names.add(getString(in));
+        }
+        assertEquals(players.keySet(), names.stream().collect(Collectors.toSet()));
+        assertEquals(STATE, nextRecord(in));
+        assertEquals("A", getString(in));
+        BinarySerializer serializer = new BinarySerializer(PlayerStrategy.class);
+        Map<String, Object> responses = new HashMap<>();
+        for (int i = 0; i < 4; i++) {
+            byte type = nextRecord(in);
+            String player = names.get((int) getVarint(in));
+            getVarint(in);
+            if (type == CALL) {
+                assertEquals(1, in.get());
+                assertEquals(10, serializer.deserialize(getBytes(in)).getParameters()[0]);
+            } else {
+                assertEquals(RESPONSE, type);
+                MethodCall response = serializer.deserialize(getBytes(in));
+                responses.put(player, response.getResponse());
+            }
+        }
+        assertEquals(11, responses.get("a"));
+        assertEquals(20, responses.get("b"));
+        assertEquals(STATE, nextRecord(in));
+        assertEquals("B", getString(in));
+        assertEquals(END, nextRecord(in));
+        assertEquals(2, getVarint(in));
+        Map<String, Double> recorded = new HashMap<>();
+        recorded.put(getString(in), in.getDouble());
+        recorded.put(getString(in), in.getDouble());
+        assertEquals(scores, recorded);
+        assertEquals(0, in.remaining());
+    }
+
+    @Test
+    public void testPlayRecordsAbort() throws IOException {
+        MatchJournal journal = new MatchJournal(directory, PlayerStrategy.class);
+        GameControllerBase<PlayerStrategy, State, Model> controller = controller(journal, State.C);
+        Map<String, PlayerStrategy> players = new HashMap<>();
+        players.put("a", n -> n);
+
+        assertThrows(StateMachineException.class, () -> controller.play(players));
+
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(singleFile()));
+        byte last = END_OF_RECORDS;
+        in.position(Integer.BYTES + 1);
+        getString(in);
+        in.getLong();
+        while (in.hasRemaining()) {
+            last = nextRecord(in);
+            skipRecord(last, in);
+        }
+        assertEquals(ABORT, last);
+    }
+
+    @Test
+    public void testJournalFailureDoesNotBreakTheMatch() {
+        MatchJournal journal = mock(MatchJournal.class);
+        given(journal.startMatch(any())).willThrow(new JournalException("Error creating journal"));
+        Map<String, PlayerStrategy> players = new HashMap<>();
+        players.put("a", n -> n + 1);
+
+        Map<String, Double> scores = controller(journal, State.B).play(players);
+
+        assertEquals(11d, scores.get("a"));
+    }
+
+    @Test
+    public void testRecorderFailuresDoNotBreakTheMatch() {
+        MatchRecorder recorder = mock(MatchRecorder.class);
+        JournalException remapError = new JournalException("Error growing journal");
+        willThrow(remapError).given(recorder).state(any());
+        willThrow(remapError).given(recorder).end(any());
+        willThrow(remapError).given(recorder).call(anyInt(), any(), any(), anyBoolean());
+        MatchJournal journal = mock(MatchJournal.class);
+        given(journal.startMatch(any())).willReturn(recorder);
+        Map<String, PlayerStrategy> players = new HashMap<>();
+        players.put("a", n -> n + 1);
+
+        Map<String, Double> scores = controller(journal, State.B).play(players);
+
+        assertEquals(11d, scores.get("a"));
+        then(recorder).should().end(scores);
+        then(recorder).should(never()).abort(any());
+        then(recorder).should().close();
+    }
+
+    private static byte nextRecord(ByteBuffer in) {
+        byte type = in.get();
+        getVarint(in);
+        return type;
+    }
+
+    private static void skipRecord(byte type, ByteBuffer in) {
+        switch (type) {
+            case START:
+                for (long i = getVarint(in); i > 0; i--) {
+                    getString(in);
+                }
+                break;
+            case CALL:
+                getVarint(in);
+                getVarint(in);
+                in.get();
+                getBytes(in);
+                break;
+            case RESPONSE:
+            case ERROR:
+                getVarint(in);
+                getVarint(in);
+                getBytes(in);
+                break;
+            default:
+                getBytes(in);
+        }
+    }
+
+    private Path singleFile() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> result = files.collect(Collectors.toList());
+            assertEquals(1, result.size());
+            return result.get(0);
+        }
+    }
+
+    private static GameControllerBase<PlayerStrategy, State, Model> controller(MatchJournal journal, State last) {
+        StateMachineDefinition<State, Model> stateMachine = StateMachineDefinitionBuilder.<State, Model>create(State.A)
+                .add(StateTriggerBuilder.<State, Model>state(State.A).trigger(MatchJournalTests::ask).transition(last))
+                .add(StateTriggerBuilder.<State, Model>state(State.B))
+                .add(StateTriggerBuilder.<State, Model>state(State.C).trigger(c -> {
+                    throw new IllegalStateException("broken");
+                }))
+                .build();
+        return new GameControllerBase<>(PlayerStrategy.class, stateMachine, Model::new, new Properties(),
+                new ConnectorAdapterBuilderBase(), PlayerExecutors.dedicatedThread(), journal);
+    }
+
+    private static void ask(Model context) {
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, PlayerResult<Integer>> results = context.askAll(p -> p.getNumber(10));
+        results.forEach((name, result) -> scores.put(name, result.get().doubleValue()));
+        context.setScores(scores);
+    }
+
+    public interface PlayerStrategy {
+
+        Integer getNumber(Integer value);
+    }
+
+    public static class Model extends GameContext<PlayerStrategy> {
+    }
+
+    public enum State {
+        A, B, C
+    }
+}
@@ -0,0 +1,180 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.journal;
+
+import com.github.dperezcabrera.ge.ConnectorAdapterBuilderBase;
+import com.github.dperezcabrera.ge.GameContext;
+import com.github.dperezcabrera.ge.GameControllerBase;
+import com.github.dperezcabrera.ge.PlayerResult;
+import com.github.dperezcabrera.ge.annotations.Timeout;
+import com.github.dperezcabrera.ge.impl.PlayerExecutors;
+import com.github.dperezcabrera.ge.st.StateMachineDefinition;
+import com.github.dperezcabrera.ge.st.StateMachineDefinitionBuilder;
+import com.github.dperezcabrera.ge.st.StateMachineDefinitionBuilder.StateTriggerBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class MatchReplayTests {
+
+    @TempDir
+    Path directory;
+
+    Map<String, Double> recordedScores;
+    MatchLog log;
+
+    @BeforeEach
+    public void record() throws IOException {
+        MatchJournal journal = new MatchJournal(directory, PlayerStrategy.class);
+        GameControllerBase<PlayerStrategy, State, Model> controller = new GameControllerBase<>(PlayerStrategy.class,
+                stateMachine(10, 1), Model::new, properties(), new ConnectorAdapterBuilderBase(),
+                PlayerExecutors.dedicatedThread(), journal);
+        Map<String, PlayerStrategy> players = new HashMap<>();
+        players.put("a", new Player(n -> n + 1));
+        players.put("b", new Player(n -> n * 2));
+        players.put("c", new Player(n -> {
+            throw new IllegalStateException("broken");
+        }));
+        recordedScores = controller.play(players);
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> result = files.collect(Collectors.toList());
+            assertEquals(1, result.size());
+            log = MatchLog.read(result.get(0));
+        }
+    }
+
+    @Test
+    public void testRead() {
+        assertEquals(PlayerStrategy.class.getName(), log.getPlayerType());
+        assertEquals(3, log.getPlayers().size());
+        assertEquals(9, log.getCalls().size());
+        assertEquals(recordedScores, log.getScores());
+        assertEquals(null, log.getAbortMessage());
+        assertTrue(log.getCalls().stream().filter(c -> c.getPlayer().equals("c") && c.isSync()).allMatch(c -> c.getError() != null));
+    }
+
+    @Test
+    public void testReplay() {
+        MatchReplay<PlayerStrategy, State, Model> replay = new MatchReplay<>(PlayerStrategy.class, stateMachine(10, 1), Model::new, properties());
+
+        Map<String, Double> result = replay.replay(log);
+
+        assertEquals(recordedScores, result);
+        assertEquals(11d, result.get("a"));
+        assertEquals(20d, result.get("b"));
+        assertEquals(-1d, result.get("c"));
+    }
+
+    @Test
+    public void testReplayDivergedCall() {
+        MatchReplay<PlayerStrategy, State, Model> replay = new MatchReplay<>(PlayerStrategy.class, stateMachine(11, 1), Model::new, properties());
+
+        assertThrows(JournalException.class, () -> replay.replay(log));
+    }
+
+    @Test
+    public void testReplayDivergedScores() {
+        MatchReplay<PlayerStrategy, State, Model> replay = new MatchReplay<>(PlayerStrategy.class, stateMachine(10, 2), Model::new, properties());
+
+        assertThrows(JournalException.class, () -> replay.replay(log));
+    }
+
+    @Test
+    public void testReplayWrongPlayerType() {
+        MatchReplay<OtherStrategy, State, OtherModel> replay = new MatchReplay<>(OtherStrategy.class,
+                StateMachineDefinitionBuilder.<State, OtherModel>create(State.A).build(), OtherModel::new, properties());
+
+        assertThrows(JournalException.class, () -> replay.replay(log));
+    }
+
+    private static Properties properties() {
+        Properties result = new Properties();
+        result.setProperty("timeout.getNumber", "1000");
+        return result;
+    }
+
+    private static StateMachineDefinition<State, Model> stateMachine(int question, double factor) {
+        return StateMachineDefinitionBuilder.<State, Model>create(State.A)
+                .add(StateTriggerBuilder.<State, Model>state(State.A).trigger(c -> {
+                    c.getPlayersConnector().values().forEach(p -> p.notify("start"));
+                    Map<String, Double> scores = new HashMap<>();
+                    Map<String, PlayerResult<Integer>> results = c.askAll(p -> p.getNumber(question));
+                    results.forEach((name, result) -> scores.put(name, result.isSuccess() ? result.get() * factor : -1d));
+                    c.setScores(scores);
+                    c.getPlayersConnector().values().forEach(p -> p.notify("end"));
+                }))
+                .build();
+    }
+
+    public interface PlayerStrategy {
+
+        @Timeout("timeout.getNumber")
+        Integer getNumber(Integer value);
+
+        void notify(String event);
+    }
+
+    public interface OtherStrategy {
+
+        void notify(String event);
+    }
+
+    public static class Player implements PlayerStrategy {
+
+        private final Function<Integer, Integer> strategy;
+
+        Player(Function<Integer, Integer> strategy) {
+            this.strategy = strategy;
+        }
+
+        @Override
+        public Integer getNumber(Integer value) {
+            return strategy.apply(value);
+        }
+
+        @Override
+        public void notify(String event) {
+        }
+    }
+
+    public static class Model extends GameContext<PlayerStrategy> {
+    }
+
+    public static class OtherModel extends GameContext<OtherStrategy> {
+    }
+
+    public enum State {
+        A
+    }
+}
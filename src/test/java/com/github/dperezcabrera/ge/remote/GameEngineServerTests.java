@@ -0,0 +1,83 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.remote;
+
+import com.github.dperezcabrera.ge.ConnectorAdapterBuilderBase;
+import com.github.dperezcabrera.ge.io.BinarySerializer;
+import com.github.dperezcabrera.ge.io.GameEvent;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class GameEngineServerTests {
+
+    private static final long CONNECTION_TIMEOUT = 300;
+    private static final long AUTHENTICATION_TIMEOUT = 2000;
+    private static final AuthenticationServer AUTHENTICATION = (connector, timeout) -> {
+        GameEvent login = connector.receive(timeout);
+        return login == null ? null : new String(login.getPayload());
+    };
+
+    ServerSocket serverSocket;
+    List<Socket> clients = new ArrayList<>();
+
+    @BeforeEach
+    public void prepareTest() throws IOException {
+        serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+    }
+
+    @AfterEach
+    public void cleanTest() throws IOException {
+        for (Socket client : clients) {
+            client.close();
+        }
+        serverSocket.close();
+    }
+
+    @Test
+    public void testSilentClientsDoNotExtendTheConnectionTime() throws IOException {
+        clients.add(new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort()));
+        clients.add(new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort()));
+        try (GameEngineServer server = new GameEngineServer(new ConnectorAdapterBuilderBase(), new BinarySerializer(Player.class), 1, 0, 1)) {
+            long start = System.currentTimeMillis();
+
+            Map<String, Player> players = server.getPlayers(Player.class, serverSocket, CONNECTION_TIMEOUT, AUTHENTICATION_TIMEOUT, 2, AUTHENTICATION, new Properties());
+
+            long elapsed = System.currentTimeMillis() - start;
+            assertTrue(players.isEmpty());
+            assertTrue(elapsed < CONNECTION_TIMEOUT + AUTHENTICATION_TIMEOUT + 500, "getPlayers took " + elapsed + " ms");
+        }
+    }
+
+    public interface Player {
+
+        void play();
+    }
+}
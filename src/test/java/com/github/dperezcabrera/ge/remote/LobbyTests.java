@@ -0,0 +1,220 @@
+/* 
+ * Copyright 2020 David Pérez Cabrera <dperezcabrera@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.dperezcabrera.ge.remote;
+
+import com.github.dperezcabrera.ge.ConnectorAdapterBuilderBase;
+import com.github.dperezcabrera.ge.GameController;
+import com.github.dperezcabrera.ge.GameRunner;
+import com.github.dperezcabrera.ge.io.BinarySerializer;
+import com.github.dperezcabrera.ge.io.GameEvent;
+import com.github.dperezcabrera.ge.io.IOConnector;
+import com.github.dperezcabrera.ge.io.IOConnectorBase;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ *
+ * @author David Pérez Cabrera <dperezcabrera@gmail.com>
+ */
+public class LobbyTests {
+
+    private static final long TIMEOUT = 2000;
+    private static final AuthenticationServer AUTHENTICATION = (connector, timeout) -> {
+        GameEvent login = connector.receive(timeout);
+        return login == null ? null : new String(login.getPayload());
+    };
+
+    ServerSocket serverSocket;
+    GameEngineServer server;
+    List<IOConnector> clients = new ArrayList<>();
+
+    @BeforeEach
+    public void prepareTest() throws IOException {
+        serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        server = new GameEngineServer(new ConnectorAdapterBuilderBase(), new BinarySerializer(Player.class));
+    }
+
+    @AfterEach
+    public void cleanTest() throws IOException {
+        clients.forEach(IOConnector::close);
+        server.close();
+        serverSocket.close();
+    }
+
+    @Test
+    public void testRejectedMatchReleasesThePlayers() throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        BlockingQueue<Throwable> errors = new LinkedBlockingQueue<>();
+        try (GameRunner<Player> runner = new GameRunner<>(mock(GameController.class), executor);
+                Lobby<Player> lobby = new Lobby<>(server, Player.class, AUTHENTICATION, TIMEOUT, new Properties(), PairingRule.firstCome(2), runner,
+                        (names, scores, error) -> errors.add(error), 4)) {
+            lobby.start(serverSocket);
+            IOConnector first = login("first");
+            IOConnector second = login("second");
+
+            assertTrue(errors.poll(TIMEOUT, TimeUnit.MILLISECONDS) instanceof RejectedExecutionException);
+            assertEquals(GameEvent.EXIT, first.receive(TIMEOUT));
+            assertEquals(GameEvent.EXIT, second.receive(TIMEOUT));
+            assertEquals(0, lobby.getWaitingPlayers());
+            assertEquals(0, lobby.getMatches());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMatchEndedAtOnceIsPlayedOutOfTheLock() throws IOException, InterruptedException {
+        AtomicReference<Lobby<Player>> current = new AtomicReference<>();
+        BlockingQueue<Integer> waitingDuringMatch = new LinkedBlockingQueue<>();
+        BlockingQueue<Map<String, Double>> results = new LinkedBlockingQueue<>();
+        AtomicInteger formed = new AtomicInteger();
+        PairingRule<Player> threeMatches = waiting -> waiting.size() >= 2 && formed.getAndIncrement() < 3 ? new ArrayList<>(waiting.subList(0, 2)) : null;
+        GameController<Player> controller = mock(GameController.class);
+        given(controller.playSessions(any())).willAnswer(inv -> {
+            waitingDuringMatch.add(CompletableFuture.supplyAsync(() -> current.get().getWaitingPlayers()).get(TIMEOUT, TimeUnit.MILLISECONDS));
+            return Collections.singletonMap("first", 1d);
+        });
+        try (GameRunner<Player> runner = new GameRunner<>(controller, new DirectExecutorService());
+                Lobby<Player> lobby = new Lobby<>(server, Player.class, AUTHENTICATION, TIMEOUT, new Properties(), threeMatches, runner,
+                        (names, scores, error) -> results.add(scores), 4)) {
+            current.set(lobby);
+            lobby.start(serverSocket);
+            login("first");
+            login("second");
+
+            for (int i = 0; i < 3; i++) {
+                assertNotNull(results.poll(TIMEOUT, TimeUnit.MILLISECONDS));
+                assertEquals(0, waitingDuringMatch.poll(TIMEOUT, TimeUnit.MILLISECONDS));
+            }
+            assertEquals(3, lobby.getMatches());
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (lobby.getWaitingPlayers() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, lobby.getWaitingPlayers());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAcceptErrorsDoNotStopTheLobby() throws IOException, InterruptedException {
+        AtomicInteger failures = new AtomicInteger(2);
+        ServerSocket flaky = new ServerSocket(0, 10, InetAddress.getLoopbackAddress()) {
+            @Override
+            public Socket accept() throws IOException {
+                if (failures.getAndDecrement() > 0) {
+                    throw new SocketException("Too many open files");
+                }
+                return super.accept();
+            }
+        };
+        serverSocket.close();
+        serverSocket = flaky;
+        BlockingQueue<Map<String, Double>> results = new LinkedBlockingQueue<>();
+        GameController<Player> controller = mock(GameController.class);
+        given(controller.playSessions(any())).willReturn(Collections.singletonMap("first", 1d));
+        try (GameRunner<Player> runner = new GameRunner<>(controller, 1);
+                Lobby<Player> lobby = new Lobby<>(server, Player.class, AUTHENTICATION, TIMEOUT, new Properties(), PairingRule.firstCome(2), runner,
+                        (names, scores, error) -> results.add(scores), 4)) {
+            lobby.start(serverSocket);
+            login("first");
+            login("second");
+
+            assertNotNull(results.poll(TIMEOUT, TimeUnit.MILLISECONDS));
+            assertTrue(failures.get() < 0);
+        }
+    }
+
+    private IOConnector login(String name) throws IOException {
+        IOConnector result = new IOConnectorBase(new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort()));
+        clients.add(result);
+        result.send(new GameEvent("login", name));
+        return result;
+    }
+
+    public interface Player {
+
+        void play();
+    }
+
+    /**
+     * Runs the tasks in the caller thread, so the matches end before they are
+     * submitted.
+     */
+    private static class DirectExecutorService extends AbstractExecutorService {
+
+        private volatile boolean shutdown = false;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return shutdown;
+        }
+    }
+}
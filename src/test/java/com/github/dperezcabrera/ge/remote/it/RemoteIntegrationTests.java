@@ -19,30 +19,50 @@ import com.github.dperezcabrera.ge.ConnectorAdapterBuilderBase;
 import com.github.dperezcabrera.ge.GameContext;
 import com.github.dperezcabrera.ge.GameController;
 import com.github.dperezcabrera.ge.GameControllerBase;
+import com.github.dperezcabrera.ge.GameRunner;
 import com.github.dperezcabrera.ge.annotations.Timeout;
+import com.github.dperezcabrera.ge.io.BinarySerializer;
+import com.github.dperezcabrera.ge.io.EventLoop;
 import com.github.dperezcabrera.ge.io.JsonSerializer;
 import com.github.dperezcabrera.ge.io.MethodCall;
 import com.github.dperezcabrera.ge.io.Serializer;
+import com.github.dperezcabrera.ge.remote.AuthenticationClient;
 import com.github.dperezcabrera.ge.remote.AuthenticationLoginPassword;
 import com.github.dperezcabrera.ge.remote.GameEngineClient;
 import com.github.dperezcabrera.ge.remote.GameEngineServer;
+import com.github.dperezcabrera.ge.remote.Lobby;
+import com.github.dperezcabrera.ge.remote.PairingRule;
 import com.github.dperezcabrera.ge.st.StateMachineDefinition;
 import com.github.dperezcabrera.ge.st.StateMachineDefinitionBuilder;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  *
  * @author David Pérez Cabrera <dperezcabrera@gmail.com>
@@ -51,12 +71,21 @@ import org.junit.jupiter.api.BeforeEach;
 public class RemoteIntegrationTests {
 
     private static final Serializer<MethodCall, byte[]> SERIALIZER = new JsonSerializer(PlayerStrategy.class);
+    private static final Serializer<MethodCall, byte[]> BINARY_SERIALIZER = new BinarySerializer(PlayerStrategy.class);
     private static final int PORT = 3333;
+    private static final int NIO_PORT = 3334;
+    private static final int SLOW_PORT = 3335;
+    private static final int LOBBY_PORT = 3336;
+    private static final int MUX_PORT = 3337;
+    private static final int ASK_ALL_PORT = 3338;
+    private static final int LOBBY_MATCHES = 6;
+    private static final int COMPRESSION_THRESHOLD = 16;
     private static final int CONNECTION_TIMEOUT = 3000;
     private static final int AUTENTICATION_TIMEOUT = 1000;
     private static final int PLAYERS = 3;
 
     StateMachineDefinition<State, Model> stateMachine;
+    StateMachineDefinition<State, Model> askAllStateMachine;
     Properties properties;
 
     private static StateMachineDefinitionBuilder.StateTriggerBuilder<State, Model> state(State state) {
@@ -79,55 +108,189 @@ public class RemoteIntegrationTests {
                             c.commands.put(e.getKey(), -1);
                         }
                     }
-                }).transition(State.RESULT)).add(state(State.RESULT).trigger(c -> {
-                    int counter = 0;
-                    int players = 0;
-                    Map<Integer, String> candidates = new HashMap<>();
-                    Map<String, Double> scores = new HashMap<>();
-                    for (Entry<String, PlayerStrategy> e : c.getPlayersConnector().entrySet()) {
-                        int command = c.commands.get(e.getKey());
-                        if (command >= 0) {
-                            scores.put(e.getKey(), 0d);
-                            counter += command;
-                            candidates.put(players++, e.getKey());
+                }).transition(State.RESULT)).add(state(State.RESULT).trigger(RemoteIntegrationTests::result)).build();
+
+        askAllStateMachine = StateMachineDefinitionBuilder.<State, Model> create(State.BEGIN)
+                .add(state(State.BEGIN).trigger(c -> {
+                    int size = c.getPlayersConnector().size();
+                    c.askAll(p -> p.getRandom(size)).forEach((name, result) -> {
+                        if (result.isSuccess()) {
+                            c.commands.put(name, result.getValue());
                         } else {
-                            scores.put(e.getKey(), -1d);
+                            log.info("El jugador '" + name + "' esta descalificado", result.getError());
+                            c.commands.put(name, -1);
                         }
-                    }
-                    counter %= candidates.size();
-                    String winner = candidates.get(counter);
-                    scores.put(winner, 1.0);
-                    c.setScores(scores);
-                    c.getPlayersConnector().values().forEach(p -> p.sendResult(candidates, c.commands, winner));
-                })).build();
+                    });
+                }).transition(State.RESULT)).add(state(State.RESULT).trigger(RemoteIntegrationTests::result)).build();
+    }
+
+    private static void result(Model c) {
+        int counter = 0;
+        int players = 0;
+        Map<Integer, String> candidates = new HashMap<>();
+        Map<String, Double> scores = new HashMap<>();
+        for (Entry<String, PlayerStrategy> e : c.getPlayersConnector().entrySet()) {
+            int command = c.commands.get(e.getKey());
+            if (command >= 0) {
+                scores.put(e.getKey(), 0d);
+                counter += command;
+                candidates.put(players++, e.getKey());
+            } else {
+                scores.put(e.getKey(), -1d);
+            }
+        }
+        counter %= candidates.size();
+        String winner = candidates.get(counter);
+        scores.put(winner, 1.0);
+        c.setScores(scores);
+        c.getPlayersConnector().values().forEach(p -> p.sendResult(candidates, c.commands, winner));
     }
 
     @Test
     public void test() throws IOException {
         ExecutorService executors = Executors.newFixedThreadPool(PLAYERS);
+        Map<String, String> loginPassword = startClients(executors, PORT, SERIALIZER);
+        try (GameEngineServer server = new GameEngineServer(new ConnectorAdapterBuilderBase(), SERIALIZER)) {
+            Map<String, PlayerStrategy> players = server.getPlayers(PlayerStrategy.class, PORT, CONNECTION_TIMEOUT,
+                    AUTENTICATION_TIMEOUT, PLAYERS, AuthenticationLoginPassword.getAuthenticationServer(loginPassword),
+                    properties);
+            play(players);
+        }
+    }
+
+    @Test
+    public void testAskAll() throws IOException {
+        ExecutorService executors = Executors.newFixedThreadPool(PLAYERS);
+        Map<String, String> loginPassword = startClients(executors, ASK_ALL_PORT, SERIALIZER);
+        try (GameEngineServer server = new GameEngineServer(new ConnectorAdapterBuilderBase(), SERIALIZER)) {
+            Map<String, PlayerStrategy> players = server.getPlayers(PlayerStrategy.class, ASK_ALL_PORT, CONNECTION_TIMEOUT,
+                    AUTENTICATION_TIMEOUT, PLAYERS, AuthenticationLoginPassword.getAuthenticationServer(loginPassword),
+                    properties);
+            assertEquals(PLAYERS, players.size());
+            play(players, askAllStateMachine);
+        }
+    }
+
+    @Test
+    public void testEventLoop() throws IOException {
+        ExecutorService executors = Executors.newFixedThreadPool(PLAYERS);
+        Map<String, String> loginPassword = startClients(executors, NIO_PORT, BINARY_SERIALIZER);
+        try (EventLoop eventLoop = new EventLoop(1);
+                ServerSocketChannel serverChannel = ServerSocketChannel.open().bind(new InetSocketAddress(NIO_PORT));
+                GameEngineServer server = new GameEngineServer(new ConnectorAdapterBuilderBase(), BINARY_SERIALIZER)) {
+            Map<String, PlayerStrategy> players = server.getPlayers(PlayerStrategy.class, serverChannel, eventLoop, CONNECTION_TIMEOUT,
+                    AUTENTICATION_TIMEOUT, PLAYERS, AuthenticationLoginPassword.getAuthenticationServer(loginPassword, COMPRESSION_THRESHOLD),
+                    properties);
+            assertEquals(PLAYERS, players.size());
+            play(players);
+        }
+    }
+
+    @Test
+    public void testSlowClientDoesNotDelayLogins() throws IOException {
+        ExecutorService executors = Executors.newFixedThreadPool(PLAYERS);
+        Map<String, String> loginPassword = startClients(executors, SLOW_PORT, SERIALIZER);
+        try (ServerSocket serverSocket = new ServerSocket(SLOW_PORT);
+                Socket slowClient = new Socket(InetAddress.getLoopbackAddress(), SLOW_PORT);
+                GameEngineServer server = new GameEngineServer(new ConnectorAdapterBuilderBase(), SERIALIZER)) {
+            long start = System.currentTimeMillis();
+            Map<String, PlayerStrategy> players = server.getPlayers(PlayerStrategy.class, serverSocket, CONNECTION_TIMEOUT * 2,
+                    CONNECTION_TIMEOUT, PLAYERS, AuthenticationLoginPassword.getAuthenticationServer(loginPassword), properties);
+
+            assertEquals(loginPassword.keySet(), players.keySet());
+            assertTrue(System.currentTimeMillis() - start < CONNECTION_TIMEOUT, "logins waited for the slow client");
+            play(players);
+        }
+    }
+
+    @Test
+    public void testLobby() throws IOException, InterruptedException {
+        ExecutorService executors = Executors.newFixedThreadPool(PLAYERS);
+        Map<String, String> loginPassword = startClients(executors, LOBBY_PORT, SERIALIZER, PLAYERS * 2);
+        BlockingQueue<Map<String, Double>> results = new LinkedBlockingQueue<>();
+        GameController<PlayerStrategy> gc = new GameControllerBase<>(PlayerStrategy.class, stateMachine, Model::new, properties, new ConnectorAdapterBuilderBase());
+        try (ServerSocket serverSocket = new ServerSocket(LOBBY_PORT);
+                GameEngineServer server = new GameEngineServer(new ConnectorAdapterBuilderBase(), SERIALIZER);
+                GameRunner<PlayerStrategy> runner = new GameRunner<>(gc, 2);
+                Lobby<PlayerStrategy> lobby = new Lobby<>(server, PlayerStrategy.class, AuthenticationLoginPassword.getAuthenticationServer(loginPassword),
+                        AUTENTICATION_TIMEOUT, properties, PairingRule.firstCome(PLAYERS), runner, (names, scores, error) -> results.add(scores), 4)) {
+            lobby.start(serverSocket);
+
+            for (int i = 0; i < LOBBY_MATCHES; i++) {
+                Map<String, Double> scores = results.poll(CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS);
+                assertNotNull(scores);
+                assertEquals(PLAYERS, scores.size());
+                assertFalse(scores.containsValue(-1d), "disqualified players: " + scores);
+            }
+            assertTrue(lobby.getMatches() >= LOBBY_MATCHES);
+        }
+    }
+
+    @Test
+    public void testMultiplexedPlayers() throws IOException, InterruptedException {
+        ExecutorService executors = Executors.newFixedThreadPool(PLAYERS);
+        Map<String, String> loginPassword = new HashMap<>();
+        Map<String, PlayerStrategy> bots = new HashMap<>();
+        Map<String, AuthenticationClient> authentications = new HashMap<>();
+        for (int i = 0; i < PLAYERS * 2; i++) {
+            String login = "bot-" + i;
+            loginPassword.put(login, UUID.randomUUID().toString());
+            bots.put(login, new PlayerStrategyRandom(login));
+            authentications.put(login, AuthenticationLoginPassword.getAuthenticationClient(login, loginPassword.get(login)));
+        }
+        BlockingQueue<Map<String, Double>> results = new LinkedBlockingQueue<>();
+        GameController<PlayerStrategy> gc = new GameControllerBase<>(PlayerStrategy.class, stateMachine, Model::new, properties, new ConnectorAdapterBuilderBase());
+        try (ServerSocket serverSocket = new ServerSocket(MUX_PORT);
+                GameEngineServer server = new GameEngineServer(new ConnectorAdapterBuilderBase(), SERIALIZER);
+                GameRunner<PlayerStrategy> runner = new GameRunner<>(gc, 2);
+                Lobby<PlayerStrategy> lobby = new Lobby<>(server, PlayerStrategy.class, AuthenticationLoginPassword.getAuthenticationServer(loginPassword),
+                        AUTENTICATION_TIMEOUT, properties, PairingRule.firstCome(PLAYERS), runner, (names, scores, error) -> results.add(scores), 4)) {
+            lobby.start(serverSocket);
+            List<GameEngineClient> clients = GameEngineClient.startMultiplexed("127.0.0.1", MUX_PORT, bots, authentications, SERIALIZER, executors);
+            assertEquals(PLAYERS * 2, clients.size());
+
+            for (int i = 0; i < LOBBY_MATCHES; i++) {
+                Map<String, Double> scores = results.poll(CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS);
+                assertNotNull(scores);
+                assertEquals(PLAYERS, scores.size());
+                assertFalse(scores.containsValue(-1d), "disqualified players: " + scores);
+            }
+            clients.forEach(GameEngineClient::close);
+        }
+    }
+
+    private static Map<String, String> startClients(Executor executors, int port, Serializer<MethodCall, byte[]> serializer) {
+        return startClients(executors, port, serializer, PLAYERS);
+    }
+
+    private static Map<String, String> startClients(Executor executors, int port, Serializer<MethodCall, byte[]> serializer, int players) {
         final Map<String, String> loginPassword = new HashMap<>();
-        for (int i = 0; i < PLAYERS; i++) {
+        for (int i = 0; i < players; i++) {
             final int index = i;
             final String login = "player-" + index;
             loginPassword.put(login, UUID.randomUUID().toString());
             execute(executors, 500L,
-                    () -> GameEngineClient.start("127.0.0.1", PORT, new PlayerStrategyRandom((login)), login,
+                    () -> GameEngineClient.start("127.0.0.1", port, new PlayerStrategyRandom((login)), login,
                             AuthenticationLoginPassword.getAuthenticationClient(login, loginPassword.get(login)),
-                            SERIALIZER));
+                            serializer));
         }
-        try (GameEngineServer server = new GameEngineServer(new ConnectorAdapterBuilderBase(), SERIALIZER)) {
-            Map<String, PlayerStrategy> players = server.getPlayers(PlayerStrategy.class, PORT, CONNECTION_TIMEOUT,
-                    AUTENTICATION_TIMEOUT, PLAYERS, AuthenticationLoginPassword.getAuthenticationServer(loginPassword),
-                    properties);
-            if (players.size() >= 1) {
-                GameController<PlayerStrategy> gc = new GameControllerBase(
-                        PlayerStrategy.class, 
-                        stateMachine,
-                        Model::new,
-                        properties, new ConnectorAdapterBuilderBase());
-                Map<String, Double> scores = gc.play(players);
-                log.info("scores: \n{}", scores);
-            }
+        return loginPassword;
+    }
+
+    private void play(Map<String, PlayerStrategy> players) {
+        play(players, stateMachine);
+    }
+
+    private void play(Map<String, PlayerStrategy> players, StateMachineDefinition<State, Model> stateMachine) {
+        if (players.size() >= 1) {
+            GameController<PlayerStrategy> gc = new GameControllerBase(
+                    PlayerStrategy.class, 
+                    stateMachine,
+                    Model::new,
+                    properties, new ConnectorAdapterBuilderBase());
+            Map<String, Double> scores = gc.play(players);
+            log.info("scores: \n{}", scores);
+            assertFalse(scores.containsValue(-1d), "disqualified players: " + scores);
         }
     }
 